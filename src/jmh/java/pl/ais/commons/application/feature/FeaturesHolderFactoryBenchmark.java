@@ -0,0 +1,101 @@
+package pl.ais.commons.application.feature;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.ais.commons.application.feature.internal.FeatureA;
+import pl.ais.commons.application.feature.internal.OperationalFeaturesHolder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the cost of creating {@link FeaturesHolder} instances by {@link FeaturesHolderFactory} using generated
+ * function, and reflective constructor call.
+ *
+ * <p>
+ * Benchmark is compiled within {@code benchmark} profile, and can be run using:
+ * {@code mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=pl.ais.commons.application.feature.FeaturesHolderFactoryBenchmark}.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class FeaturesHolderFactoryBenchmark {
+
+    private final Map<Class<?>, Optional<?>> featuresMap = Map.of(FeatureA.class, Optional.empty());
+
+    private FeaturesHolderFactory factory;
+
+    /**
+     * Type of created {@link FeaturesHolder} instances.
+     */
+    @Param({"default", "custom"})
+    private String product;
+
+    private Function<Map<Class<?>, Optional<?>>, FeaturesHolder> reflective;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments (ignored)
+     * @throws RunnerException if the benchmark cannot be run
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FeaturesHolderFactoryBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Creates {@link FeaturesHolder} instance using generated function.
+     *
+     * @return created instance
+     */
+    @Benchmark
+    public FeaturesHolder generated() {
+        return factory.createFeaturesHolder(featuresMap);
+    }
+
+    /**
+     * Creates {@link FeaturesHolder} instance using reflective constructor call.
+     *
+     * @return created instance
+     */
+    @Benchmark
+    public FeaturesHolder reflective() {
+        return reflective.apply(featuresMap);
+    }
+
+    /**
+     * Prepares the factory, and reflective function creating the instances of desired type.
+     *
+     * @throws NoSuchMethodException if desired type doesn't have 1-arg constructor with Map parameter
+     */
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        final Class<? extends FeaturesHolder> productClass =
+            "default".equals(product) ? DefaultFeaturesHolder.class : OperationalFeaturesHolder.class;
+        factory = new FeaturesHolderFactory(productClass);
+        reflective = FeaturesHolderFactory.reflective(productClass.getConstructor(Map.class));
+    }
+
+}
@@ -0,0 +1,193 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact {@link FeaturesHolder} implementation.
+ *
+ * <p>
+ * Instead of copying the features map, this holder keeps the bit mask of owned features (indexed by
+ * {@link FeatureIndex feature indices}), and the array of their handlers ordered by feature index, so
+ * {@link #hasFeature(Class)} is a single bit test, and bulk queries using {@link FeatureSet} are plain bit mask
+ * operations. It can be used as a product class of {@link FeaturesHolderFactory}.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class CompactFeaturesHolder implements FeaturesHolder {
+
+    /**
+     * Results of the lookup for each owned feature, ordered by feature index.
+     */
+    private final FeatureLookup<?>[] handlers;
+
+    private final long[] words;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param featuresMap mapping of features owned by the holder
+     */
+    public CompactFeaturesHolder(@Nonnull final Map<Class<?>, Optional<?>> featuresMap) {
+        super();
+
+        // Verify constructor requirements, ...
+        if (null == featuresMap) {
+            throw new IllegalArgumentException("Features map is required.");
+        }
+
+        // ... build the bit mask of owned features, ...
+        long[] mask = new long[0];
+        for (final Class<?> feature : featuresMap.keySet()) {
+            final int index = FeatureIndex.indexOf(feature);
+            final int word = index >>> 6;
+            if (word >= mask.length) {
+                mask = Arrays.copyOf(mask, word + 1);
+            }
+            mask[word] |= 1L << index;
+        }
+        words = mask;
+
+        // ... and place the handlers according to the rank of their features within the mask.
+        handlers = new FeatureLookup<?>[featuresMap.size()];
+        for (final Map.Entry<Class<?>, Optional<?>> entry : featuresMap.entrySet()) {
+            handlers[rankOf(FeatureIndex.indexOf(entry.getKey()))] = FeatureLookup.of(entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        boolean result = (this == object);
+        if (!result && (object instanceof CompactFeaturesHolder)) {
+            final CompactFeaturesHolder other = (CompactFeaturesHolder) object;
+            result = Arrays.equals(words, other.words) && Arrays.equals(handlers, other.handlers);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    @Override
+    public <F> FeatureLookup<F> findFeature(@Nonnull final Class<F> feature) {
+
+        // Verify method requirements, ...
+        if (null == feature) {
+            throw new IllegalArgumentException("Feature is required.");
+        }
+
+        // ... and do the work.
+        final int index = FeatureIndex.find(feature);
+        return isOwned(index) ? (FeatureLookup<F>) handlers[rankOf(index)] : FeatureLookup.unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <F> F getFeature(@Nonnull final Class<F> feature) throws UnsupportedFeatureException,
+        VirtualFeatureException {
+
+        // Verify method requirements, ...
+        if (null == feature) {
+            throw new IllegalArgumentException("Feature is required.");
+        }
+
+        // ... raise an exception if this feature is unsupported, ...
+        final int index = FeatureIndex.find(feature);
+        if (!isOwned(index)) {
+            throw new UnsupportedFeatureException(feature);
+        }
+
+        // ... return the handler if present, raise an exception otherwise.
+        final FeatureLookup<F> handler = (FeatureLookup<F>) handlers[rankOf(index)];
+        if (handler.isPresent()) {
+            return handler.get();
+        }
+        throw new VirtualFeatureException(feature);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasAllFeatures(@Nonnull final FeatureSet features) {
+        final long[] mask = features.getWords();
+        for (int word = 0; word < mask.length; word++) {
+            final long owned = (word < words.length) ? words[word] : 0L;
+            if (0 != (mask[word] & ~owned)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasAnyFeature(@Nonnull final FeatureSet features) {
+        final long[] mask = features.getWords();
+        for (int word = Math.min(mask.length, words.length) - 1; word >= 0; word--) {
+            if (0 != (mask[word] & words[word])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasFeature(@Nonnull final Class<?> feature) {
+
+        // Verify method requirements, ...
+        if (null == feature) {
+            throw new IllegalArgumentException("Feature is required.");
+        }
+
+        // ... and do the work.
+        return isOwned(FeatureIndex.find(feature));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(words) + Arrays.hashCode(handlers);
+    }
+
+    private boolean isOwned(final int index) {
+        final int word = index >>> 6;
+        return (FeatureIndex.UNASSIGNED != index) && (word < words.length) && (0 != (words[word] & (1L << index)));
+    }
+
+    /**
+     * @param index index of owned feature
+     * @return number of owned features having index lower than given one
+     */
+    private int rankOf(final int index) {
+        final int word = index >>> 6;
+        int rank = Long.bitCount(words[word] & ((1L << index) - 1));
+        for (int preceding = 0; preceding < word; preceding++) {
+            rank += Long.bitCount(words[preceding]);
+        }
+        return rank;
+    }
+
+}
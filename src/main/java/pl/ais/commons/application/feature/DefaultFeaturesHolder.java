@@ -14,6 +14,8 @@ import java.util.Optional;
 @Immutable
 public final class DefaultFeaturesHolder extends FeaturesHolderSupport {
 
+    private static final long serialVersionUID = 7385027512392066614L;
+
     /**
      * Constructs new instance.
      *
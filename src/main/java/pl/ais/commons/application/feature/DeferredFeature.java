@@ -0,0 +1,133 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.function.Supplier;
+
+/**
+ * Feature handler, which is created on first use.
+ *
+ * <p>
+ * When used as a value of the features map passed to {@link FeaturesHolderFactory}, the holder reports the feature
+ * as present, but calls the underlying supplier only when the handler is requested for the first time (ex. by
+ * {@link FeaturesHolder#getFeature(Class)}), and reuses obtained handler afterwards. Queries like
+ * {@link FeaturesHolder#hasFeature(Class)} never create the handler.
+ * </p>
+ *
+ * <p>
+ * Handlers having narrower lifecycle than the holder (ex. prototype, or request scoped beans) should be
+ * {@link #uncached(Supplier) uncached} - such handler is obtained from the supplier each time it is requested.
+ * </p>
+ *
+ * @param <F> determines the type of feature
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class DeferredFeature<F> implements Supplier<F> {
+
+    private final boolean cached;
+
+    private volatile F handler;
+
+    private Supplier<? extends F> supplier;
+
+    private DeferredFeature(final Supplier<? extends F> supplier, final boolean cached) {
+        super();
+        this.supplier = supplier;
+        this.cached = cached;
+    }
+
+    /**
+     * Creates deferred handler, obtained from given supplier on first use.
+     *
+     * @param <F>      determines the type of feature
+     * @param supplier supplier of the feature handler
+     * @return newly created deferred handler
+     */
+    @Nonnull
+    public static <F> DeferredFeature<F> of(@Nonnull final Supplier<? extends F> supplier) {
+
+        // Verify method requirements, ...
+        if (null == supplier) {
+            throw new IllegalArgumentException("Supplier is required.");
+        }
+
+        // ... and do the work.
+        return new DeferredFeature<>(supplier, true);
+    }
+
+    /**
+     * Creates deferred handler, obtained from given supplier each time it is requested.
+     *
+     * @param <F>      determines the type of feature
+     * @param supplier supplier of the feature handler
+     * @return newly created deferred handler
+     */
+    @Nonnull
+    public static <F> DeferredFeature<F> uncached(@Nonnull final Supplier<? extends F> supplier) {
+
+        // Verify method requirements, ...
+        if (null == supplier) {
+            throw new IllegalArgumentException("Supplier is required.");
+        }
+
+        // ... and do the work.
+        return new DeferredFeature<>(supplier, false);
+    }
+
+    /**
+     * @return the feature handler, created on first call (or on each call, if this handler is not cached)
+     * @throws IllegalStateException if the supplier provided no handler
+     */
+    @Nonnull
+    @Override
+    public F get() throws IllegalStateException {
+        if (!cached) {
+            final F result = supplier.get();
+            if (null == result) {
+                throw new IllegalStateException("Supplier provided no feature handler.");
+            }
+            return result;
+        }
+        F result = handler;
+        if (null == result) {
+            synchronized (this) {
+                result = handler;
+                if (null == result) {
+                    result = supplier.get();
+                    if (null == result) {
+                        throw new IllegalStateException("Supplier provided no feature handler.");
+                    }
+                    handler = result;
+                    supplier = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if the handler is cached, {@code false} if it is obtained from the supplier each time
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * @return {@code true} if the handler was already created (and cached), {@code false} otherwise
+     */
+    public boolean isResolved() {
+        return null != handler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return isResolved() ? "Deferred: " + handler : (cached ? "Deferred" : "Deferred (uncached)");
+    }
+
+}
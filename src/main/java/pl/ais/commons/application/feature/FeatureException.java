@@ -22,15 +22,40 @@ public class FeatureException extends RuntimeException {
      */
     private static final long serialVersionUID = -2275613423936588859L;
 
+    /**
+     * Name of the system property deciding if feature exceptions should capture the stack trace by default
+     * ({@code true} if not set).
+     *
+     * @since 1.3.4
+     */
+    public static final String STACK_TRACE_PROPERTY = "pl.ais.commons.application.feature.stackTrace";
+
+    private static final boolean STACK_TRACE = Boolean.parseBoolean(System.getProperty(STACK_TRACE_PROPERTY, "true"));
+
     private final Class<?> feature;
 
     /**
      * Constructs new instance.
      *
+     * <p>
+     * Stack trace will be captured, unless disabled using {@value #STACK_TRACE_PROPERTY} system property.
+     * </p>
+     *
      * @param feature feature being reason of this exception
      */
     protected FeatureException(@Nonnull final Class<?> feature) {
-        super();
+        this(feature, STACK_TRACE);
+    }
+
+    /**
+     * Constructs new instance.
+     *
+     * @param feature            feature being reason of this exception
+     * @param writableStackTrace determines if the stack trace should be captured
+     * @since 1.3.4
+     */
+    protected FeatureException(@Nonnull final Class<?> feature, final boolean writableStackTrace) {
+        super(null, null, true, writableStackTrace);
 
         // Verify constructor requirements first, ...
         if (null == feature) {
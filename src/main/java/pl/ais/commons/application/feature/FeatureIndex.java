@@ -0,0 +1,94 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Registry assigning dense integer indices to the features.
+ *
+ * <p>
+ * Each feature gets its index when it is bound to the holder (usually on application startup, when the features are
+ * bound to their handlers), or added to {@link FeatureSet}, and keeps it for the lifetime of the application.
+ * Queries (like {@link FeaturesHolder#hasFeature(Class)}) use {@link #find(Class)}, which never assigns the index,
+ * so probing with foreign classes doesn't grow the registry. Indices are used for representing the sets of features
+ * as bit masks (see {@link FeatureSet}, and {@link CompactFeaturesHolder}).
+ * </p>
+ *
+ * <p>
+ * Indices are attached to the feature classes (using {@link ClassValue}), so the registry doesn't prevent unloading
+ * them.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+public final class FeatureIndex {
+
+    /**
+     * Index of the feature, which wasn't assigned yet.
+     */
+    static final int UNASSIGNED = -1;
+
+    private static final ClassValue<Slot> SLOTS = new ClassValue<>() {
+
+        @Override
+        protected Slot computeValue(final Class<?> type) {
+            return new Slot();
+        }
+
+    };
+
+    private static int next;
+
+    private FeatureIndex() {
+        throw new AssertionError("This class shouldn't be instantiated!");
+    }
+
+    private static synchronized int assign(final Slot slot) {
+        if (UNASSIGNED == slot.index) {
+            slot.index = next++;
+        }
+        return slot.index;
+    }
+
+    /**
+     * Retrieves the index of given feature, without assigning it.
+     *
+     * @param feature the feature
+     * @return the index of given feature, or {@link #UNASSIGNED} if the feature has no index assigned yet (so it is
+     * not owned by any holder, nor feature set)
+     */
+    static int find(@Nonnull final Class<?> feature) {
+        return SLOTS.get(feature).index;
+    }
+
+    /**
+     * Retrieves the index of given feature, assigning it if needed.
+     *
+     * @param feature the feature
+     * @return the index of given feature
+     */
+    public static int indexOf(@Nonnull final Class<?> feature) {
+
+        // Verify method requirements, ...
+        if (null == feature) {
+            throw new IllegalArgumentException("Feature is required.");
+        }
+
+        // ... and do the work.
+        final Slot slot = SLOTS.get(feature);
+        final int result = slot.index;
+        return (UNASSIGNED == result) ? assign(slot) : result;
+    }
+
+    /**
+     * Index of the feature.
+     */
+    private static final class Slot {
+
+        private volatile int index = UNASSIGNED;
+
+    }
+
+}
@@ -0,0 +1,240 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Result of the feature lookup.
+ *
+ * <p>
+ * Holds the feature handler if the feature is present, otherwise tells if requested feature is virtual (has
+ * no implementation), or unsupported (is not owned by the holder). Results describing virtual and unsupported
+ * features are shared. Handler of the feature bound to {@link DeferredFeature} is created when it is requested
+ * for the first time.
+ * </p>
+ *
+ * @param <F> determines the type of feature
+ * @author Warlock, AIS.PL
+ * @see FeaturesHolder#findFeature(Class)
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class FeatureLookup<F> {
+
+    private static final FeatureLookup<?> UNSUPPORTED = new FeatureLookup<>(Status.UNSUPPORTED, null, null);
+
+    private static final FeatureLookup<?> VIRTUAL = new FeatureLookup<>(Status.VIRTUAL, null, null);
+
+    private final DeferredFeature<? extends F> deferred;
+
+    private final F handler;
+
+    private final Status status;
+
+    private FeatureLookup(@Nonnull final Status status, @Nullable final F handler,
+                          @Nullable final DeferredFeature<? extends F> deferred) {
+        super();
+        this.status = status;
+        this.handler = handler;
+        this.deferred = deferred;
+    }
+
+    /**
+     * Returns the lookup result describing the feature bound to given handler.
+     *
+     * @param handler {@link Optional} holding the feature handler (or {@link DeferredFeature}), or empty
+     *                {@link Optional} if the feature is virtual
+     * @return the lookup result describing the feature bound to given handler
+     */
+    @Nonnull
+    static FeatureLookup<?> of(@Nonnull final Optional<?> handler) {
+        final FeatureLookup<?> result;
+        if (handler.isEmpty()) {
+            result = VIRTUAL;
+        } else if (handler.get() instanceof DeferredFeature) {
+            result = new FeatureLookup<>(Status.PRESENT, null, (DeferredFeature<?>) handler.get());
+        } else {
+            result = present(handler.get());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lookup result describing present feature.
+     *
+     * @param <F>     determines the type of feature
+     * @param handler the feature handler
+     * @return the lookup result describing present feature
+     */
+    @Nonnull
+    public static <F> FeatureLookup<F> present(@Nonnull final F handler) {
+
+        // Verify method requirements, ...
+        if (null == handler) {
+            throw new IllegalArgumentException("Handler is required.");
+        }
+
+        // ... and do the work.
+        return new FeatureLookup<>(Status.PRESENT, handler, null);
+    }
+
+    /**
+     * Returns the lookup result describing unsupported feature.
+     *
+     * @param <F> determines the type of feature
+     * @return the lookup result describing unsupported feature
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <F> FeatureLookup<F> unsupported() {
+        return (FeatureLookup<F>) UNSUPPORTED;
+    }
+
+    /**
+     * Returns the lookup result describing virtual feature.
+     *
+     * @param <F> determines the type of feature
+     * @return the lookup result describing virtual feature
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <F> FeatureLookup<F> virtual() {
+        return (FeatureLookup<F>) VIRTUAL;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        boolean result = (this == object);
+        if (!result && (object instanceof FeatureLookup)) {
+            final FeatureLookup<?> other = (FeatureLookup<?>) object;
+            result = (status == other.status) && Objects.equals(handler, other.handler)
+                && Objects.equals(deferred, other.deferred);
+        }
+        return result;
+    }
+
+    /**
+     * @return the feature handler
+     * @throws NoSuchElementException if the feature is not present
+     */
+    @Nonnull
+    public F get() throws NoSuchElementException {
+        final F result = resolve();
+        if (null == result) {
+            throw new NoSuchElementException("Feature is not present: " + status);
+        }
+        return result;
+    }
+
+    /**
+     * @return the status of the feature
+     */
+    @Nonnull
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, handler, deferred);
+    }
+
+    /**
+     * Passes the feature handler to given consumer, if the feature is present.
+     *
+     * @param consumer the consumer
+     */
+    public void ifPresent(@Nonnull final Consumer<? super F> consumer) {
+        final F result = resolve();
+        if (null != result) {
+            consumer.accept(result);
+        }
+    }
+
+    /**
+     * @return {@code true} if the feature is present, {@code false} otherwise
+     */
+    public boolean isPresent() {
+        return Status.PRESENT == status;
+    }
+
+    /**
+     * @return {@code true} if the feature is unsupported, {@code false} otherwise
+     */
+    public boolean isUnsupported() {
+        return Status.UNSUPPORTED == status;
+    }
+
+    /**
+     * @return {@code true} if the feature is virtual, {@code false} otherwise
+     */
+    public boolean isVirtual() {
+        return Status.VIRTUAL == status;
+    }
+
+    /**
+     * @param other value to be returned if the feature is not present
+     * @return the feature handler if the feature is present, {@code other} otherwise
+     */
+    public F orElse(@Nullable final F other) {
+        final F result = resolve();
+        return (null == result) ? other : result;
+    }
+
+    private F resolve() {
+        return (null == deferred) ? handler : deferred.get();
+    }
+
+    /**
+     * @return {@link Optional} holding the feature handler if the feature is present, empty {@link Optional}
+     * otherwise
+     */
+    @Nonnull
+    public Optional<F> toOptional() {
+        return Optional.ofNullable(resolve());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final Object value = (null == deferred) ? handler : deferred;
+        return (null == value) ? status.toString() : String.format("%s: %s", status, value);
+    }
+
+    /**
+     * Status of the feature.
+     */
+    public enum Status {
+
+        /**
+         * Feature is owned by the holder, and has the implementation.
+         */
+        PRESENT,
+
+        /**
+         * Feature is owned by the holder, but has no implementation.
+         */
+        VIRTUAL,
+
+        /**
+         * Feature is not owned by the holder.
+         */
+        UNSUPPORTED
+
+    }
+
+}
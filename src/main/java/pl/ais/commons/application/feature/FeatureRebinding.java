@@ -0,0 +1,85 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Binds the features of deserialized {@link FeaturesHolder} instances to their handlers.
+ *
+ * <p>
+ * Serialized holders carry only the names of their features (see {@link FeaturesHolderSupport}), handlers are
+ * looked up on deserialization, using the binder registered for the class loader of deserializing thread (or the
+ * closest of its parents). Binder is usually registered by the component resolving the holders (ex. Spring Framework
+ * argument resolver), for the class loader of its application context, and should be unregistered when the context
+ * is closed.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+public final class FeatureRebinding {
+
+    private static final ConcurrentMap<ClassLoader, Function<Class<?>, Optional<?>>> BINDERS =
+        new ConcurrentHashMap<>();
+
+    private FeatureRebinding() {
+        super();
+    }
+
+    /**
+     * Finds the binder registered for given class loader, or the closest of its parents.
+     *
+     * @param classLoader the class loader
+     * @return the binder, or {@code null} if there is no binder registered
+     */
+    @Nullable
+    static Function<Class<?>, Optional<?>> binderOf(@Nullable final ClassLoader classLoader) {
+        Function<Class<?>, Optional<?>> result = null;
+        for (ClassLoader current = classLoader; (null == result) && (null != current); current = current.getParent()) {
+            result = BINDERS.get(current);
+        }
+        return result;
+    }
+
+    /**
+     * Registers the binder providing the handlers of the features deserialized using given class loader (or its
+     * descendants), replacing the binder registered previously.
+     *
+     * @param classLoader the class loader
+     * @param binder      function providing the handler of given feature (as {@link Optional}, empty for virtual
+     *                    features)
+     */
+    public static void register(@Nonnull final ClassLoader classLoader,
+                                @Nonnull final Function<Class<?>, Optional<?>> binder) {
+
+        // Verify method requirements, ...
+        if (null == classLoader) {
+            throw new IllegalArgumentException("Class loader is required.");
+        }
+        if (null == binder) {
+            throw new IllegalArgumentException("Binder is required.");
+        }
+
+        // ... and do the work.
+        BINDERS.put(classLoader, binder);
+    }
+
+    /**
+     * Unregisters given binder, if it is still registered for given class loader.
+     *
+     * @param classLoader the class loader
+     * @param binder      the binder to be unregistered
+     * @return {@code true} if the binder was unregistered, {@code false} otherwise
+     */
+    public static boolean unregister(@Nonnull final ClassLoader classLoader,
+                                     @Nonnull final Function<Class<?>, Optional<?>> binder) {
+        return BINDERS.remove(classLoader, binder);
+    }
+
+}
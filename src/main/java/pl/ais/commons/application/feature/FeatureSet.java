@@ -0,0 +1,161 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of features, represented as bit mask of their {@link FeatureIndex indices}.
+ *
+ * <p>
+ * Feature sets are meant to be computed once (ex. on application startup), and used many times for bulk queries
+ * like {@link FeaturesHolder#hasAllFeatures(FeatureSet)}.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class FeatureSet implements Iterable<Class<?>> {
+
+    private static final long[] NO_WORDS = new long[0];
+
+    private final Class<?>[] features;
+
+    private final long[] words;
+
+    private FeatureSet(final Set<Class<?>> features) {
+        super();
+
+        this.features = features.toArray(new Class<?>[0]);
+        long[] mask = NO_WORDS;
+        for (final Class<?> feature : this.features) {
+            final int index = FeatureIndex.indexOf(feature);
+            final int word = index >>> 6;
+            if (word >= mask.length) {
+                mask = Arrays.copyOf(mask, word + 1);
+            }
+            mask[word] |= 1L << index;
+        }
+        words = mask;
+    }
+
+    /**
+     * Creates and returns feature set holding given features.
+     *
+     * @param features the features
+     * @return newly created feature set holding given features
+     */
+    @Nonnull
+    public static FeatureSet of(@Nonnull final Class<?>... features) {
+        return of(Arrays.asList(features));
+    }
+
+    /**
+     * Creates and returns feature set holding given features.
+     *
+     * @param features the features
+     * @return newly created feature set holding given features
+     */
+    @Nonnull
+    public static FeatureSet of(@Nonnull final Collection<? extends Class<?>> features) {
+
+        // Verify method requirements, ...
+        if (null == features) {
+            throw new IllegalArgumentException("Features are required.");
+        }
+
+        // ... and do the work.
+        final Set<Class<?>> distinct = new LinkedHashSet<>();
+        for (final Class<?> feature : features) {
+            if (null == feature) {
+                throw new IllegalArgumentException("Feature is required.");
+            }
+            distinct.add(feature);
+        }
+        return new FeatureSet(distinct);
+    }
+
+    /**
+     * Verifies if given feature belongs to this set.
+     *
+     * @param feature the feature to be verified
+     * @return {@code true} if the feature belongs to this set, {@code false} otherwise
+     */
+    public boolean contains(@Nonnull final Class<?> feature) {
+
+        // Verify method requirements, ...
+        if (null == feature) {
+            throw new IllegalArgumentException("Feature is required.");
+        }
+
+        // ... and do the work.
+        final int index = FeatureIndex.find(feature);
+        final int word = index >>> 6;
+        return (FeatureIndex.UNASSIGNED != index) && (word < words.length) && (0 != (words[word] & (1L << index)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        boolean result = (this == object);
+        if (!result && (object instanceof FeatureSet)) {
+            final FeatureSet other = (FeatureSet) object;
+            result = Arrays.equals(words, other.words);
+        }
+        return result;
+    }
+
+    /**
+     * @return bit mask representing this set (indexed by {@link FeatureIndex feature indices})
+     */
+    long[] getWords() {
+        return words;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    /**
+     * @return {@code true} if this set contains no features, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return 0 == features.length;
+    }
+
+    /**
+     * @return iterator over the features belonging to this set
+     */
+    @Override
+    public Iterator<Class<?>> iterator() {
+        return Arrays.asList(features).iterator();
+    }
+
+    /**
+     * @return number of features belonging to this set
+     */
+    public int size() {
+        return features.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(features);
+    }
+
+}
@@ -10,6 +10,26 @@ import javax.annotation.Nonnull;
  */
 public interface FeaturesHolder {
 
+    /**
+     * Looks the feature up, without raising an exception if it is not available.
+     *
+     * @param <F> determines the type of feature to be looked up
+     * @param feature feature to be looked up
+     * @return lookup result holding the feature handler, or telling why it is not available
+     * @since 1.3.4
+     */
+    @Nonnull
+    default <F> FeatureLookup<F> findFeature(@Nonnull final Class<F> feature) {
+        if (!hasFeature(feature)) {
+            return FeatureLookup.unsupported();
+        }
+        try {
+            return FeatureLookup.present(getFeature(feature));
+        } catch (final VirtualFeatureException exception) {
+            return FeatureLookup.virtual();
+        }
+    }
+
     /**
      * Retrieves the feature.
      *
@@ -22,6 +42,70 @@ public interface FeaturesHolder {
     @Nonnull
     <F> F getFeature(@Nonnull final Class<F> feature) throws UnsupportedFeatureException, VirtualFeatureException;
 
+    /**
+     * Verifies if all requested features are owned by the holder.
+     *
+     * @param features features to be verified
+     * @return {@code true} if all the features are owned by the holder, {@code false} otherwise
+     * @since 1.3.4
+     */
+    default boolean hasAllFeatures(@Nonnull final Class<?>... features) {
+        for (final Class<?> feature : features) {
+            if (!hasFeature(feature)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifies if all requested features are owned by the holder.
+     *
+     * @param features features to be verified
+     * @return {@code true} if all the features are owned by the holder, {@code false} otherwise
+     * @since 1.3.4
+     */
+    default boolean hasAllFeatures(@Nonnull final FeatureSet features) {
+        for (final Class<?> feature : features) {
+            if (!hasFeature(feature)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifies if any of requested features is owned by the holder.
+     *
+     * @param features features to be verified
+     * @return {@code true} if at least one of the features is owned by the holder, {@code false} otherwise
+     * @since 1.3.4
+     */
+    default boolean hasAnyFeature(@Nonnull final Class<?>... features) {
+        for (final Class<?> feature : features) {
+            if (hasFeature(feature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifies if any of requested features is owned by the holder.
+     *
+     * @param features features to be verified
+     * @return {@code true} if at least one of the features is owned by the holder, {@code false} otherwise
+     * @since 1.3.4
+     */
+    default boolean hasAnyFeature(@Nonnull final FeatureSet features) {
+        for (final Class<?> feature : features) {
+            if (hasFeature(feature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Verifies if requested feature is owned by the holder.
      *
@@ -1,11 +1,18 @@
 package pl.ais.commons.application.feature;
 
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Customizable {@link FeaturesHolder} factory.
@@ -15,10 +22,23 @@ import java.util.Optional;
  * {@link FeaturesHolder} implementing class (as long as it has 1-arg constructor accepting Map of features).
  * </p>
  *
+ * <p>
+ * Constructor of desired {@link FeaturesHolder} implementation is bound once, when the factory is created, to the
+ * function generated with {@link LambdaMetafactory}, so creating the products is as fast as direct constructor call.
+ * If such function cannot be generated (ex. when product class is not accessible), reflective constructor call
+ * is used instead.
+ * </p>
+ *
+ * <p>
+ * Factory returned by {@link #interning()} returns canonical instance per equal features map, which is useful when
+ * a lot of holders having the same features are kept in memory (ex. in HTTP sessions). Canonical instances are shared
+ * by all the interning factories having the same product class.
+ * </p>
+ *
  * @author Warlock, AIS.PL
  * @since 1.1.1
  */
-@Immutable
+@ThreadSafe
 public final class FeaturesHolderFactory {
 
     /**
@@ -26,7 +46,23 @@ public final class FeaturesHolderFactory {
      */
     private static final FeaturesHolderFactory DEFAULT_FACTORY = new FeaturesHolderFactory();
 
-    private final Constructor<? extends FeaturesHolder> constructor;
+    /**
+     * Pools of canonical instances, shared by all the interning factories having the same product class.
+     */
+    private static final ClassValue<FeaturesHolderPool> POOLS = new ClassValue<>() {
+
+        @Override
+        protected FeaturesHolderPool computeValue(final Class<?> type) {
+            return new FeaturesHolderPool();
+        }
+
+    };
+
+    private final Function<Map<Class<?>, Optional<?>>, FeaturesHolder> constructor;
+
+    private final FeaturesHolderPool pool;
+
+    private final Class<? extends FeaturesHolder> productClass;
 
     /**
      * Constructs new factory creating {@link DefaultFeaturesHolder} instances.
@@ -51,11 +87,81 @@ public final class FeaturesHolderFactory {
 
         // ... and do the work.
         try {
-            constructor = productClass.getConstructor(Map.class);
+            constructor = bind(productClass.getConstructor(Map.class));
         } catch (final NoSuchMethodException exception) {
             throw new IllegalArgumentException("Desired type (" + productClass
                 + ") doesn't have 1-arg constructor with Map parameter.", exception);
         }
+        this.productClass = productClass;
+        pool = null;
+    }
+
+    private FeaturesHolderFactory(final FeaturesHolderFactory factory, final FeaturesHolderPool pool) {
+        super();
+        constructor = factory.constructor;
+        productClass = factory.productClass;
+        this.pool = pool;
+    }
+
+    /**
+     * Binds given constructor to the function, generated if possible, reflective otherwise.
+     *
+     * @param constructor the constructor to be bound
+     * @return the function creating new instances using given constructor
+     */
+    @SuppressWarnings({"unchecked", "PMD.AvoidCatchingThrowable"})
+    private static Function<Map<Class<?>, Optional<?>>, FeaturesHolder> bind(
+        final Constructor<? extends FeaturesHolder> constructor) {
+        final Class<? extends FeaturesHolder> productClass = constructor.getDeclaringClass();
+        final MethodHandle factory;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(productClass, MethodHandles.lookup());
+            final MethodHandle handle = lookup.unreflectConstructor(constructor);
+            final CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class), handle,
+                MethodType.methodType(productClass, Map.class));
+            factory = callSite.getTarget();
+        } catch (final ReflectiveOperationException | LambdaConversionException exception) {
+            return reflective(constructor);
+        }
+
+        // Generated factory of non-capturing function doesn't throw checked exceptions, it returns the function, ...
+        final Function<Map<Class<?>, Optional<?>>, FeaturesHolder> generated;
+        try {
+            generated = (Function<Map<Class<?>, Optional<?>>, FeaturesHolder>) factory.invokeExact();
+        } catch (final RuntimeException | Error exception) {
+            throw exception;
+        } catch (final Throwable throwable) {
+            throw new IllegalStateException("Unable to bind the constructor of " + productClass, throwable);
+        }
+
+        // ... which doesn't wrap the exceptions raised by the constructor, so it is done the same way as reflective
+        // constructor call does.
+        return featuresMap -> {
+            try {
+                return generated.apply(featuresMap);
+            } catch (final RuntimeException | Error exception) {
+                throw new IllegalStateException("Unable to instantiate " + productClass,
+                    new InvocationTargetException(exception));
+            }
+        };
+    }
+
+    /**
+     * Binds given constructor to the function calling it reflectively.
+     *
+     * @param constructor the constructor to be bound
+     * @return the function creating new instances using given constructor
+     */
+    static Function<Map<Class<?>, Optional<?>>, FeaturesHolder> reflective(
+        final Constructor<? extends FeaturesHolder> constructor) {
+        return featuresMap -> {
+            try {
+                return constructor.newInstance(featuresMap);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException failure) {
+                throw new IllegalStateException("Unable to instantiate " + constructor.getDeclaringClass(), failure);
+            }
+        };
     }
 
     /**
@@ -72,7 +178,9 @@ public final class FeaturesHolderFactory {
      * Creates new {@link FeaturesHolder} instance.
      *
      * @param featuresMap features which will be owned by created {@link FeaturesHolder}
-     * @return newly created {@link FeaturesHolder} instance
+     * @return newly created {@link FeaturesHolder} instance (or canonical one, if this factory is interning)
+     * @throws IllegalStateException if {@link FeaturesHolder} cannot be instantiated, caused by
+     *                               {@link InvocationTargetException} holding the exception raised by the constructor
      */
     @Nonnull
     public FeaturesHolder createFeaturesHolder(@Nonnull final Map<Class<?>, Optional<?>> featuresMap) {
@@ -83,18 +191,43 @@ public final class FeaturesHolderFactory {
         }
 
         // ... and do the work.
-        try {
-            return constructor.newInstance(featuresMap);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException exception) {
-            throw new IllegalStateException("Unable to instantiate " + constructor.getDeclaringClass(), exception);
-        }
+        return (null == pool) ? instantiate(featuresMap) : pool.intern(featuresMap, this::instantiate);
     }
 
     /**
      * @return the type of products returned by this factory
      */
     public Class<? extends FeaturesHolder> getProductClass() {
-        return constructor.getDeclaringClass();
+        return productClass;
+    }
+
+    private FeaturesHolder instantiate(final Map<Class<?>, Optional<?>> featuresMap) {
+        return constructor.apply(featuresMap);
+    }
+
+    /**
+     * Returns the factory creating the same type of products as this one, but returning canonical instance per
+     * equal features map.
+     *
+     * <p>
+     * Canonical instances are shared by all the interning factories having the same product class, and referenced
+     * weakly, so they can be garbage collected when not used anymore.
+     * </p>
+     *
+     * @return interning counterpart of this factory (or this factory, if it is interning already)
+     * @since 1.3.4
+     */
+    @Nonnull
+    public FeaturesHolderFactory interning() {
+        return isInterning() ? this : new FeaturesHolderFactory(this, POOLS.get(productClass));
+    }
+
+    /**
+     * @return {@code true} if this factory returns canonical instance per equal features map, {@code false} otherwise
+     * @since 1.3.4
+     */
+    public boolean isInterning() {
+        return null != pool;
     }
 
 }
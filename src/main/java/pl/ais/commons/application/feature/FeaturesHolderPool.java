@@ -0,0 +1,97 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Pool of canonical {@link FeaturesHolder} instances.
+ *
+ * <p>
+ * Pool holds single instance per equal features map. Instances are referenced weakly, so the ones not used anymore
+ * can be garbage collected, their pool entries are removed afterwards.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class FeaturesHolderPool {
+
+    private final ReferenceQueue<FeaturesHolder> queue = new ReferenceQueue<>();
+
+    private final ConcurrentMap<Map<Class<?>, Optional<?>>, HolderReference> references = new ConcurrentHashMap<>();
+
+    private void expungeStaleReferences() {
+        for (Reference<? extends FeaturesHolder> reference = queue.poll(); null != reference; reference = queue.poll()) {
+            final HolderReference stale = (HolderReference) reference;
+            references.remove(stale.featuresMap, stale);
+        }
+    }
+
+    /**
+     * Returns canonical instance of {@link FeaturesHolder} owning given features, creating it if needed.
+     *
+     * @param featuresMap mapping of features owned by the holder
+     * @param creator     function creating new holder, if there is no canonical instance yet
+     * @return canonical instance of {@link FeaturesHolder} owning given features
+     */
+    @Nonnull
+    FeaturesHolder intern(@Nonnull final Map<Class<?>, Optional<?>> featuresMap,
+                          @Nonnull final Function<Map<Class<?>, Optional<?>>, FeaturesHolder> creator) {
+        expungeStaleReferences();
+
+        // Look for the canonical instance first, ...
+        final HolderReference existing = references.get(featuresMap);
+        if (null != existing) {
+            final FeaturesHolder holder = existing.get();
+            if (null != holder) {
+                return holder;
+            }
+        }
+
+        // ... if there is no such instance, create the candidate, and try to make it canonical, unless other
+        // thread was first.
+        final Map<Class<?>, Optional<?>> key = Collections.unmodifiableMap(new LinkedHashMap<>(featuresMap));
+        final FeaturesHolder candidate = creator.apply(key);
+        FeaturesHolder result;
+        do {
+            result = references.compute(key, (__, current) -> ((null != current) && (null != current.get())) ? current
+                : new HolderReference(key, candidate, queue)).get();
+        } while (null == result);
+        return result;
+    }
+
+    /**
+     * @return number of the pool entries
+     */
+    int size() {
+        return references.size();
+    }
+
+    /**
+     * Weak reference to the canonical holder, remembering the features map it was created for.
+     */
+    private static final class HolderReference extends WeakReference<FeaturesHolder> {
+
+        private final Map<Class<?>, Optional<?>> featuresMap;
+
+        HolderReference(final Map<Class<?>, Optional<?>> featuresMap, final FeaturesHolder holder,
+                        final ReferenceQueue<FeaturesHolder> queue) {
+            super(holder, queue);
+            this.featuresMap = featuresMap;
+        }
+
+    }
+
+}
@@ -2,6 +2,10 @@ package pl.ais.commons.application.feature;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -11,14 +15,30 @@ import java.util.Optional;
 /**
  * Base class to be extended by {@link FeaturesHolder} implementations.
  *
+ * <p>
+ * Holders are serialized in compact form, holding the names of owned features only (see {@link FeatureRebinding}),
+ * and are re-created on deserialization using the constructor taking the features map. Compact form doesn't hold the
+ * state of subclasses, so subclasses having such state should override {@link #writeReplace()}.
+ * </p>
+ *
  * @author Warlock, AIS.PL
  * @since 1.1.1
  */
 @SuppressWarnings("PMD.BeanMembersShouldSerialize")
 @ThreadSafe
-public class FeaturesHolderSupport implements FeaturesHolder {
+public class FeaturesHolderSupport implements FeaturesHolder, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Unmodifiable view of the features owned by the holder.
+     */
+    private final transient Map<Class<?>, Optional<?>> features;
 
-    private final Map<Class<?>, Optional<?>> featuresMap;
+    /**
+     * Results of the lookup for each owned feature, prepared upfront.
+     */
+    private final transient Map<Class<?>, FeatureLookup<?>> featuresMap;
 
     /**
      * Constructs new instance.
@@ -34,7 +54,9 @@ public class FeaturesHolderSupport implements FeaturesHolder {
         }
 
         // ... and initialize this instance fields.
-        this.featuresMap = new LinkedHashMap<>(featuresMap);
+        features = Collections.unmodifiableMap(new LinkedHashMap<>(featuresMap));
+        this.featuresMap = new LinkedHashMap<>();
+        featuresMap.forEach((feature, handler) -> this.featuresMap.put(feature, FeatureLookup.of(handler)));
     }
 
     /**
@@ -51,6 +73,24 @@ public class FeaturesHolderSupport implements FeaturesHolder {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    @Override
+    public <F> FeatureLookup<F> findFeature(@Nonnull final Class<F> feature) {
+
+        // Verify method requirements, ...
+        if (null == feature) {
+            throw new IllegalArgumentException("Feature is required.");
+        }
+
+        // ... and do the work.
+        final FeatureLookup<F> result = (FeatureLookup<F>) featuresMap.get(feature);
+        return (null == result) ? FeatureLookup.unsupported() : result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -65,7 +105,7 @@ public class FeaturesHolderSupport implements FeaturesHolder {
         }
 
         // ... try to find feature handler, raise an exception if this feature is unsupported, ...
-        final Optional<F> handler = (Optional<F>) featuresMap.get(feature);
+        final FeatureLookup<F> handler = (FeatureLookup<F>) featuresMap.get(feature);
         if (null == handler) {
             throw new UnsupportedFeatureException(feature);
         }
@@ -78,10 +118,11 @@ public class FeaturesHolderSupport implements FeaturesHolder {
     }
 
     /**
-     * @return unmodifiable view of the features owned by the holder
+     * @return unmodifiable view of the features owned by the holder (handlers, which are not created yet, are held
+     * as {@link DeferredFeature} instances)
      */
     protected Map<Class<?>, Optional<?>> getFeaturesMap() {
-        return Collections.unmodifiableMap(featuresMap);
+        return features;
     }
 
     /**
@@ -107,4 +148,23 @@ public class FeaturesHolderSupport implements FeaturesHolder {
         return Objects.hashCode(featuresMap);
     }
 
+    private void readObject(final ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("Features holder should be deserialized from its serialized form.");
+    }
+
+    /**
+     * Provides the object written to the stream instead of this holder.
+     *
+     * <p>
+     * Holder itself cannot be deserialized, so the subclasses overriding this method should provide their own
+     * serialized form, resolving to the holder on deserialization.
+     * </p>
+     *
+     * @return serialized form of this holder
+     * @throws ObjectStreamException never, declared for serialization purposes
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return new SerializedFeaturesHolder(getClass(), featuresMap);
+    }
+
 }
@@ -0,0 +1,30 @@
+package pl.ais.commons.application.feature;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the handler method (or all handler methods of the type) as requiring given features.
+ *
+ * <p>
+ * Requests handled by such methods are rejected, unless the {@link FeaturesHolder} resolved for the requesting user
+ * owns all of the required features. Requirements declared on the type and on the method are combined.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RequiresFeature {
+
+    /**
+     * @return the features required by the handler
+     */
+    Class<?>[] value();
+
+}
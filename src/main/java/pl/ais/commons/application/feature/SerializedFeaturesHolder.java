@@ -0,0 +1,97 @@
+package pl.ais.commons.application.feature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Serialized form of {@link FeaturesHolderSupport}.
+ *
+ * <p>
+ * Holds the name of the holder class, names of the owned features, and the bit mask of virtual ones. Handlers are
+ * not serialized, deserialized holder binds the features to the handlers provided by {@link FeatureRebinding} binder
+ * (features having no handler become virtual), and is interned, so it is equal to (and usually the same as) the
+ * holder resolved for the same features by live application.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class SerializedFeaturesHolder implements Serializable {
+
+    private static final ClassValue<FeaturesHolderFactory> FACTORIES = new ClassValue<>() {
+
+        @Override
+        protected FeaturesHolderFactory computeValue(final Class<?> type) {
+            return new FeaturesHolderFactory(type.asSubclass(FeaturesHolder.class)).interning();
+        }
+
+    };
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] features;
+
+    private final String holderClass;
+
+    private final byte[] virtual;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param holderClass the class of serialized holder
+     * @param featuresMap results of the lookup for each feature owned by serialized holder
+     */
+    SerializedFeaturesHolder(@Nonnull final Class<?> holderClass,
+                             @Nonnull final Map<Class<?>, FeatureLookup<?>> featuresMap) {
+        super();
+        this.holderClass = holderClass.getName();
+        features = new String[featuresMap.size()];
+        final BitSet mask = new BitSet(features.length);
+        int index = 0;
+        for (final Map.Entry<Class<?>, FeatureLookup<?>> entry : featuresMap.entrySet()) {
+            features[index] = entry.getKey().getName();
+            mask.set(index, entry.getValue().isVirtual());
+            index++;
+        }
+        virtual = mask.toByteArray();
+    }
+
+    private static ClassLoader classLoader() {
+        final ClassLoader result = Thread.currentThread().getContextClassLoader();
+        return (null == result) ? SerializedFeaturesHolder.class.getClassLoader() : result;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        final ClassLoader classLoader = classLoader();
+        final Function<Class<?>, Optional<?>> binder = FeatureRebinding.binderOf(classLoader);
+        if (null == binder) {
+            throw new InvalidObjectException("There is no binder able to provide the handlers of the features.");
+        }
+        try {
+            final BitSet mask = BitSet.valueOf(virtual);
+            final Map<Class<?>, Optional<?>> featuresMap = new LinkedHashMap<>();
+            for (int index = 0; index < features.length; index++) {
+                final Class<?> feature = Class.forName(features[index], false, classLoader);
+                featuresMap.put(feature, mask.get(index) ? Optional.empty() : binder.apply(feature));
+            }
+            return FACTORIES.get(Class.forName(holderClass, false, classLoader)).createFeaturesHolder(featuresMap);
+        } catch (final ClassNotFoundException | RuntimeException exception) {
+
+            // Holder class may be unusable by the factory (ex. missing the constructor), or its constructor may fail.
+            final InvalidObjectException result = new InvalidObjectException("Unable to deserialize features holder.");
+            result.initCause(exception);
+            throw result;
+        }
+    }
+
+}
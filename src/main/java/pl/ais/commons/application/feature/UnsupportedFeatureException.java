@@ -26,4 +26,15 @@ public final class UnsupportedFeatureException extends FeatureException {
         super(feature);
     }
 
+    /**
+     * Constructs new instance.
+     *
+     * @param feature            unsupported feature
+     * @param writableStackTrace determines if the stack trace should be captured
+     * @since 1.3.4
+     */
+    public UnsupportedFeatureException(@Nonnull final Class<?> feature, final boolean writableStackTrace) {
+        super(feature, writableStackTrace);
+    }
+
 }
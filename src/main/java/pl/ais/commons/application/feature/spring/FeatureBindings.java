@@ -0,0 +1,113 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.ais.commons.application.feature.DeferredFeature;
+import pl.ais.commons.application.feature.FeatureIndex;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable table binding the features to Spring Framework beans handling them.
+ *
+ * <p>
+ * Bindings are resolved once (ex. on application context refresh), so building {@link FeaturesHolderBuilder}
+ * products doesn't require touching the bean factory. Handlers, which are not instantiated yet (lazy singleton
+ * beans), are bound as {@link DeferredFeature deferred} ones, so they are created only if some holder is asked for
+ * them. Handlers which aren't singletons (ex. prototype, or request scoped beans) are bound as
+ * {@link DeferredFeature#uncached(java.util.function.Supplier) uncached} deferred ones, so they are obtained from the
+ * application context each time they are requested, like before the bindings were introduced.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class FeatureBindings {
+
+    private final Map<Class<?>, Optional<?>> handlers;
+
+    private FeatureBindings(final Map<Class<?>, Optional<?>> handlers) {
+        super();
+        this.handlers = handlers;
+    }
+
+    /**
+     * Resolves the handlers of given features.
+     *
+     * <p>
+     * Each feature is bound to the first Spring Framework bean having feature type, features having no such beans
+     * are considered as virtual. Bound features get their {@link FeatureIndex indices} assigned. Binding doesn't
+     * instantiate any bean.
+     * </p>
+     *
+     * @param context  application context providing feature handlers
+     * @param features features to be bound
+     * @return newly created bindings table
+     */
+    @Nonnull
+    static FeatureBindings bind(@Nonnull final ApplicationContext context,
+                                @Nonnull final Collection<? extends Collection<Class<?>>> features) {
+        final Map<Class<?>, Optional<?>> handlers = new LinkedHashMap<>();
+        for (final Collection<Class<?>> group : features) {
+            for (final Class<?> feature : group) {
+                if (!handlers.containsKey(feature)) {
+                    FeatureIndex.indexOf(feature);
+                    final String[] beanNames = context.getBeanNamesForType(feature, true, false);
+                    handlers.put(feature, (0 == beanNames.length) ? Optional.empty()
+                        : Optional.of(handlerOf(context, feature, beanNames[0])));
+                }
+            }
+        }
+        return new FeatureBindings(Collections.unmodifiableMap(handlers));
+    }
+
+    private static Object handlerOf(final ApplicationContext context, final Class<?> feature, final String beanName) {
+        final Object result;
+        if (!context.isSingleton(beanName)) {
+            result = DeferredFeature.uncached(() -> context.getBean(beanName, feature));
+        } else if ((context instanceof ConfigurableApplicationContext) && ((ConfigurableApplicationContext) context).isActive()
+            && ((ConfigurableApplicationContext) context).getBeanFactory().containsSingleton(beanName)) {
+            result = context.getBean(beanName, feature);
+        } else {
+            result = DeferredFeature.of(() -> context.getBean(beanName, feature));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the handler bound to given feature, if any.
+     *
+     * @param feature the feature
+     * @return {@link Optional} holding feature handler, or empty {@link Optional} if the feature is virtual or not
+     * bound
+     */
+    @Nonnull
+    Optional<?> findHandler(@Nonnull final Class<?> feature) {
+        return handlers.getOrDefault(feature, Optional.empty());
+    }
+
+    /**
+     * Retrieves the handler bound to given feature.
+     *
+     * @param feature the feature
+     * @return {@link Optional} holding feature handler, or empty {@link Optional} if the feature is virtual
+     * @throws IllegalArgumentException if given feature is not bound
+     */
+    @Nonnull
+    Optional<?> getHandler(@Nonnull final Class<?> feature) throws IllegalArgumentException {
+        final Optional<?> handler = handlers.get(feature);
+        if (null == handler) {
+            throw new IllegalArgumentException("Feature " + feature + " is not bound.");
+        }
+        return handler;
+    }
+
+}
@@ -1,6 +1,5 @@
 package pl.ais.commons.application.feature.spring;
 
-import org.springframework.context.ApplicationContext;
 import pl.ais.commons.application.feature.FeaturesHolder;
 import pl.ais.commons.application.feature.FeaturesHolderFactory;
 
@@ -18,7 +17,7 @@ import java.util.Optional;
 @SuppressWarnings("PMD.BeanMembersShouldSerialize")
 final class FeaturesHolderBuilder {
 
-    private final ApplicationContext context;
+    private final FeatureBindings bindings;
 
     private final FeaturesHolderFactory factory;
 
@@ -32,12 +31,12 @@ final class FeaturesHolderBuilder {
      * {@link FeaturesHolder} instances.
      * </p>
      *
-     * @param factory factory capable of creating {@link FeaturesHolder} instances
-     * @param context application context
+     * @param factory  factory capable of creating {@link FeaturesHolder} instances
+     * @param bindings bindings between the features and their handlers
      */
-    public FeaturesHolderBuilder(@Nonnull final FeaturesHolderFactory factory, @Nonnull final ApplicationContext context) {
+    public FeaturesHolderBuilder(@Nonnull final FeaturesHolderFactory factory, @Nonnull final FeatureBindings bindings) {
         super();
-        this.context = context;
+        this.bindings = bindings;
         this.factory = factory;
         featuresMap = new LinkedHashMap<>();
     }
@@ -55,20 +54,9 @@ final class FeaturesHolderBuilder {
             throw new IllegalArgumentException("Feature is required.");
         }
 
-        // ... check if the feature wasn't added yet, ...
+        // ... check if the feature wasn't added yet, and register it using bound handler.
         if (!featuresMap.containsKey(feature)) {
-
-            // ... find Spring Framework beans having feature type, ...
-            final Map<String, ?> handlersMap = context.getBeansOfType(feature);
-            if (handlersMap.isEmpty()) {
-
-                // ... if there are no such beans, the feature will be considered as virtual, ...
-                featuresMap.put(feature, Optional.empty());
-            } else {
-
-                // ... register the feature (using first bean from the map returned by Spring).
-                featuresMap.put(feature, Optional.of(handlersMap.values().iterator().next()));
-            }
+            featuresMap.put(feature, bindings.getHandler(feature));
         }
         return this;
     }
@@ -0,0 +1,273 @@
+package pl.ais.commons.application.feature.spring;
+
+import pl.ais.commons.application.feature.FeaturesHolder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded cache of {@link FeaturesHolder} instances.
+ *
+ * <p>
+ * Lookup of cached holder requires single probe of the concurrent map, and doesn't block. When the cache grows over
+ * its maximum size, least recently used entries are evicted, using <em>second chance</em> (CLOCK) approximation of
+ * LRU policy - each hit marks the entry as referenced, and the clock hand (persistent between evictions) skips
+ * (and un-marks) referenced entries once.
+ * </p>
+ *
+ * <p>
+ * Entries can be stamped with the version of the data they were derived from, entry having other version than
+ * requested one is considered stale, and replaced.
+ * </p>
+ *
+ * @param <K> determines the type of cache keys
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class FeaturesHolderCache<K> {
+
+    /**
+     * Default maximum number of cached holders.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    private final ConcurrentMap<K, Entry> entries;
+
+    private final Object evictionLock = new Object();
+
+    /**
+     * The clock hand, guarded by {@link #evictionLock}.
+     */
+    private Iterator<Map.Entry<K, Entry>> hand;
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final UnaryOperator<K> keyCopier;
+
+    private final int maximumSize;
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs new instance.
+     *
+     * @param maximumSize maximum number of holders kept by the cache
+     * @throws IllegalArgumentException if given maximum size is not positive
+     */
+    public FeaturesHolderCache(final int maximumSize) throws IllegalArgumentException {
+        this(maximumSize, UnaryOperator.identity());
+    }
+
+    /**
+     * Constructs new instance.
+     *
+     * @param maximumSize maximum number of holders kept by the cache
+     * @param keyCopier   function copying the key before it is stored, useful if the keys used for lookup refer
+     *                    the data which may change (ex. the authorities of the request)
+     * @throws IllegalArgumentException if given maximum size is not positive
+     */
+    public FeaturesHolderCache(final int maximumSize, @Nonnull final UnaryOperator<K> keyCopier)
+        throws IllegalArgumentException {
+        super();
+
+        // Verify constructor requirements, ...
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size should be positive.");
+        }
+        if (null == keyCopier) {
+            throw new IllegalArgumentException("Key copier is required.");
+        }
+
+        // ... and initialize this instance fields.
+        this.maximumSize = maximumSize;
+        this.keyCopier = keyCopier;
+        entries = new ConcurrentHashMap<>(Math.min(maximumSize, DEFAULT_MAXIMUM_SIZE));
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() > maximumSize) {
+            synchronized (evictionLock) {
+                while (entries.size() > maximumSize) {
+                    evictOne();
+                }
+            }
+        }
+    }
+
+    private void evictOne() {
+
+        // Advance the clock hand (wrapping around at the end), giving each referenced entry the second chance, and
+        // removing first one which is not referenced - if all of them are referenced, second revolution removes
+        // the first one visited again.
+        for (int remaining = 2 * entries.size() + 1; remaining > 0; remaining--) {
+            if ((null == hand) || !hand.hasNext()) {
+                hand = entries.entrySet().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+            final Map.Entry<K, Entry> candidate = hand.next();
+            final Entry entry = candidate.getValue();
+            if (entry.referenced && (remaining > 1)) {
+                entry.referenced = false;
+            } else if (entries.remove(candidate.getKey(), entry)) {
+                evictions.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the holder cached for given key, creating it using provided loader if needed.
+     *
+     * @param key    the key
+     * @param loader function creating the holder for given key, used on cache miss
+     * @return the holder cached for given key
+     */
+    @Nonnull
+    public FeaturesHolder get(@Nonnull final K key, @Nonnull final Function<? super K, ? extends FeaturesHolder> loader) {
+        return get(key, 0L, loader);
+    }
+
+    /**
+     * Retrieves the holder cached for given key and version, creating it using provided loader if needed.
+     *
+     * @param key     the key
+     * @param version version of the data the holder should be derived from
+     * @param loader  function creating the holder for given key, used on cache miss (or if cached entry is stale)
+     * @return the holder cached for given key
+     */
+    @Nonnull
+    public FeaturesHolder get(@Nonnull final K key, final long version,
+                              @Nonnull final Function<? super K, ? extends FeaturesHolder> loader) {
+
+        // Verify method requirements, ...
+        if (null == key) {
+            throw new IllegalArgumentException("Key is required.");
+        }
+        if (null == loader) {
+            throw new IllegalArgumentException("Loader is required.");
+        }
+
+        // ... try to find the entry in the cache, ...
+        Entry entry = entries.get(key);
+        if ((null != entry) && (version == entry.version)) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+        } else {
+
+            // ... create it on cache miss (or replace stale one), and trim the cache if needed.
+            entry = entries.compute(keyCopier.apply(key), (candidate, current) -> {
+                if ((null != current) && (version == current.version)) {
+                    return current;
+                }
+                misses.increment();
+                return new Entry(loader.apply(candidate), version);
+            });
+            evictIfNeeded();
+        }
+        return entry.holder;
+    }
+
+    /**
+     * Retrieves the holder cached for given key and version, without creating it.
+     *
+     * @param key     the key
+     * @param version version of the data the holder should be derived from
+     * @return the holder cached for given key, or {@code null} if there is no such holder (or cached one is stale)
+     */
+    @Nullable
+    public FeaturesHolder getIfPresent(@Nonnull final K key, final long version) {
+
+        // Verify method requirements, ...
+        if (null == key) {
+            throw new IllegalArgumentException("Key is required.");
+        }
+
+        // ... and do the work.
+        final Entry entry = entries.get(key);
+        if ((null == entry) || (version != entry.version)) {
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.holder;
+    }
+
+    /**
+     * @return number of holders evicted from the cache
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return maximum number of holders kept by the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Removes all holders from the cache.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * @return current number of holders kept by the cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cache entry.
+     */
+    private static final class Entry {
+
+        private final FeaturesHolder holder;
+
+        private volatile boolean referenced;
+
+        private final long version;
+
+        Entry(final FeaturesHolder holder, final long version) {
+            this.holder = holder;
+            this.version = version;
+        }
+
+    }
+
+}
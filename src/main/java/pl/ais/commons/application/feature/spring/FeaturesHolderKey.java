@@ -0,0 +1,142 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Key identifying resolved {@link pl.ais.commons.application.feature.FeaturesHolder} - the tenant, and the set of
+ * granted authorities.
+ *
+ * <p>
+ * Authorities are compared as sets (the order and duplicates don't matter), so the key can be created directly over
+ * the authorities of the request, without copying them. Such key should be {@link #copy() copied} before it is
+ * stored.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class FeaturesHolderKey {
+
+    /**
+     * Maximum number of authorities, which are not copied to the set when the key is created.
+     */
+    private static final int MAXIMUM_VIEW_SIZE = 16;
+
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    private final int hashCode;
+
+    private final Object tenant;
+
+    private FeaturesHolderKey(@Nullable final Object tenant,
+                              @Nonnull final Collection<? extends GrantedAuthority> authorities) {
+        super();
+        this.tenant = tenant;
+        this.authorities = authorities;
+        hashCode = 31 * Objects.hashCode(tenant) + hashOf(authorities);
+    }
+
+    /**
+     * Creates the key over given authorities.
+     *
+     * @param tenant      the tenant (may be {@code null})
+     * @param authorities granted authorities (referenced by created key, unless there are many of them)
+     * @return newly created key
+     */
+    @Nonnull
+    static FeaturesHolderKey of(@Nullable final Object tenant,
+                                @Nonnull final Collection<? extends GrantedAuthority> authorities) {
+        return new FeaturesHolderKey(tenant, ((authorities instanceof Set) || (authorities.size() <= MAXIMUM_VIEW_SIZE))
+            ? authorities : Set.copyOf(authorities));
+    }
+
+    /**
+     * @param elements the elements
+     * @return hash code of the set holding given elements
+     */
+    private static int hashOf(final Collection<?> elements) {
+        if (elements instanceof Set) {
+            return elements.hashCode();
+        }
+
+        // Elements are few, so skipping the duplicates by scanning preceding ones is cheaper than copying them.
+        int result = 0;
+        int position = 0;
+        for (final Object element : elements) {
+            if (isFirstOccurrence(elements, element, position)) {
+                result += Objects.hashCode(element);
+            }
+            position++;
+        }
+        return result;
+    }
+
+    private static boolean isFirstOccurrence(final Collection<?> elements, final Object element, final int position) {
+        int preceding = 0;
+        for (final Object candidate : elements) {
+            if (preceding++ == position) {
+                break;
+            }
+            if (Objects.equals(candidate, element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the key equal to this one, holding its own copy of the authorities
+     */
+    @Nonnull
+    FeaturesHolderKey copy() {
+        return new FeaturesHolderKey(tenant, Set.copyOf(authorities));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        boolean result = (this == object);
+        if (!result && (object instanceof FeaturesHolderKey)) {
+            final FeaturesHolderKey other = (FeaturesHolderKey) object;
+            result = (hashCode == other.hashCode) && Objects.equals(tenant, other.tenant)
+                && authorities.containsAll(other.authorities) && other.authorities.containsAll(authorities);
+        }
+        return result;
+    }
+
+    /**
+     * @return granted authorities
+     */
+    @Nonnull
+    Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * @return the tenant (may be {@code null})
+     */
+    @Nullable
+    Object getTenant() {
+        return tenant;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+}
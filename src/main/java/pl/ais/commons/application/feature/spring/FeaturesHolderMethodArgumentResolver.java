@@ -1,55 +1,225 @@
 package pl.ais.commons.application.feature.spring;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.MethodParameter;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
+import pl.ais.commons.application.feature.FeatureRebinding;
 import pl.ais.commons.application.feature.FeaturesHolder;
 import pl.ais.commons.application.feature.FeaturesHolderFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.security.Principal;
-import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Provides possibility of resolving handler method arguments of type {@link FeaturesHolder}.
  *
+ * <p>
+ * Resolved holders are immutable, and shared between all requests made by users having the same set of granted
+ * authorities - they are kept by {@link FeaturesHolderCache}, sized by {@link #setMaximumCacheSize(int)}.
+ * </p>
+ *
+ * <p>
+ * Handlers of all the features from the features map are resolved once, when the application context is refreshed
+ * (or on first use, if the resolver doesn't receive {@link ContextRefreshedEvent}), so the request threads never
+ * touch the bean factory.
+ * </p>
+ *
+ * <p>
+ * Mapping between granted authorities and features can be replaced at runtime (see
+ * {@link #reloadFeaturesMap(Supplier)}), each replacement publishes new, immutable snapshot of the mapping, having
+ * higher {@link #getFeaturesMapVersion() version}. Requests use the snapshot without locking, and cached holders
+ * derived from previous versions are dropped.
+ * </p>
+ *
+ * <p>
+ * If the {@link #setRoleHierarchy(RoleHierarchy) role hierarchy} is set, authority grants also the features of all
+ * the authorities reachable from it, so there is no need to repeat inherited features in the features map.
+ * </p>
+ *
+ * <p>
+ * Single resolver can serve many tenants: {@link #setTenantKeyExtractor(Function) tenant key extractor} determines
+ * the tenant of the authentication, and {@link #setTenantFeaturesMap(Object, Map) tenant specific features map}
+ * (if any) is used instead of the default one. Tenants having no specific mapping share the cached holders of the
+ * default mapping. Holders of all tenants are kept by the same cache (and the number of tenant specific mappings is
+ * bounded by {@link #setMaximumTenantCount(int)}), and holders having equal features are shared between tenants
+ * (if the {@link FeaturesHolderFactory} is {@link FeaturesHolderFactory#interning() interning}, which is the case
+ * for the default one).
+ * </p>
+ *
+ * <p>
+ * Resolver registers itself as {@link FeatureRebinding} binder for the class loader of its application context, so
+ * the holders deserialized (ex. from replicated HTTP session) get their features bound to the handlers from this
+ * context. Binder is unregistered when the context is closed (or the resolver is destroyed).
+ * </p>
+ *
  * @author Warlock, AIS.PL
  * @since 1.1.1
  */
 public final class FeaturesHolderMethodArgumentResolver implements ApplicationContextAware,
-    HandlerMethodArgumentResolver {
+    ApplicationListener<ApplicationContextEvent>, DisposableBean, HandlerMethodArgumentResolver {
+
+    /**
+     * Default maximum number of the tenants having specific mapping.
+     */
+    public static final int DEFAULT_MAXIMUM_TENANT_COUNT = 1024;
+
+    private final Function<Class<?>, Optional<?>> binder = this::rebind;
+
+    private volatile FeaturesHolderCache<FeaturesHolderKey> cache;
+
+    private volatile ApplicationContext context;
+
+    private volatile FeaturesHolderFactory factory;
 
-    private ApplicationContext context;
+    private volatile FeaturesMapping mapping;
 
-    private FeaturesHolderFactory factory;
+    private volatile int maximumTenantCount;
 
-    private Map<GrantedAuthority, Set<Class<?>>> featuresMap;
+    private volatile Function<? super Authentication, ?> tenantKeyExtractor;
 
     /**
      * Constructs new instance.
      */
     public FeaturesHolderMethodArgumentResolver() {
         super();
-        factory = FeaturesHolderFactory.getInstance();
+        factory = FeaturesHolderFactory.getInstance().interning();
+        cache = new FeaturesHolderCache<>(FeaturesHolderCache.DEFAULT_MAXIMUM_SIZE, FeaturesHolderKey::copy);
+        mapping = FeaturesMapping.empty();
+        maximumTenantCount = DEFAULT_MAXIMUM_TENANT_COUNT;
+        tenantKeyExtractor = authentication -> null;
     }
 
-    private void addFeaturesForAuthority(final GrantedAuthority authority, final FeaturesHolderBuilder builder) {
-        final Collection<Class<?>> features = featuresMap.get(authority);
-        if (null != features) {
-            for (final Class<?> feature : features) {
+    private static ClassLoader classLoaderOf(final ApplicationContext context) {
+        final ClassLoader result = context.getClassLoader();
+        return (null == result) ? ClassUtils.getDefaultClassLoader() : result;
+    }
+
+    private FeaturesHolder createFeaturesHolder(final FeaturesMapping snapshot, final FeaturesHolderKey key) {
+        final FeaturesHolderBuilder builder = new FeaturesHolderBuilder(factory, snapshot.getBindings(context));
+        for (final GrantedAuthority authority : key.getAuthorities()) {
+            for (final Class<?> feature : snapshot.getFeatures(key.getTenant(), authority)) {
                 builder.addFeature(feature);
             }
         }
+        return builder.build();
+    }
+
+    /**
+     * Unregisters {@link FeatureRebinding} binder of this resolver.
+     */
+    @Override
+    public void destroy() {
+        final ApplicationContext current = context;
+        if (null != current) {
+            FeatureRebinding.unregister(classLoaderOf(current), binder);
+        }
+    }
+
+    /**
+     * Finds {@link FeaturesHolder} owning the features granted to given authentication, if it is resolved already.
+     *
+     * @param authentication the authentication
+     * @return {@link FeaturesHolder} owning the features granted to given authentication, or {@code null} if it
+     * should be resolved (which may require creating the handlers)
+     */
+    @Nullable
+    FeaturesHolder findFeaturesHolder(@Nonnull final Authentication authentication) {
+        final FeaturesMapping snapshot = mapping;
+        return cache.getIfPresent(keyOf(snapshot, authentication), snapshot.getVersion());
+    }
+
+    /**
+     * @return the cache of resolved {@link FeaturesHolder} instances (useful for checking the hit/miss statistics)
+     */
+    public FeaturesHolderCache<?> getFeaturesHolderCache() {
+        return cache;
+    }
+
+    /**
+     * @return version of currently used mapping between granted authorities and features
+     */
+    public long getFeaturesMapVersion() {
+        return mapping.getVersion();
+    }
+
+    private FeaturesHolderKey keyOf(final FeaturesMapping snapshot, final Authentication authentication) {
+        return FeaturesHolderKey.of(snapshot.tenantOf(tenantKeyExtractor.apply(authentication)),
+            authentication.getAuthorities());
+    }
+
+    /**
+     * Rebinds the features to their handlers, when the application context used by this resolver is refreshed, and
+     * unregisters {@link FeatureRebinding} binder of this resolver, when the context is closed.
+     *
+     * @param event the event to respond to
+     */
+    @Override
+    public void onApplicationEvent(@Nonnull final ApplicationContextEvent event) {
+        if ((event instanceof ContextClosedEvent) && (event.getApplicationContext() == context)) {
+            destroy();
+        } else if ((event instanceof ContextRefreshedEvent) && (event.getApplicationContext() == context)) {
+            synchronized (this) {
+                final FeaturesMapping refreshed = mapping.withVersion(mapping.getVersion() + 1);
+                refreshed.getBindings(context);
+                publish(refreshed);
+            }
+        }
+    }
+
+    private Optional<?> rebind(final Class<?> feature) {
+
+        // Handlers are provided as bound, so deserialized holders are equal to the ones resolved by this resolver.
+        return mapping.getBindings(context).findHandler(feature);
+    }
+
+    private void publish(final FeaturesMapping snapshot) {
+        mapping = snapshot;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Replaces the mapping between granted authorities and features with the one provided by given supplier.
+     *
+     * @param supplier supplier of the mapping between granted authority and set of features
+     * @return version of the mapping published by this method
+     */
+    public long reloadFeaturesMap(@Nonnull final Supplier<? extends Map<GrantedAuthority, Set<Class<?>>>> supplier) {
+
+        // Verify method requirements, ...
+        if (null == supplier) {
+            throw new IllegalArgumentException("Features map supplier is required.");
+        }
+
+        // ... and do the work.
+        final Map<GrantedAuthority, Set<Class<?>>> featuresMap = supplier.get();
+        if (null == featuresMap) {
+            throw new IllegalArgumentException("Features map is required.");
+        }
+        synchronized (this) {
+            final FeaturesMapping snapshot = mapping.withFeaturesMap(featuresMap, mapping.getVersion() + 1);
+            publish(snapshot);
+            return snapshot.getVersion();
+        }
     }
 
     /**
@@ -63,15 +233,24 @@ public final class FeaturesHolderMethodArgumentResolver implements ApplicationCo
         final Principal principal = webRequest.getUserPrincipal();
         FeaturesHolder result = null;
         if (principal instanceof Authentication) {
-            final FeaturesHolderBuilder builder = new FeaturesHolderBuilder(factory, context);
-            for (final GrantedAuthority authority : ((Authentication) principal).getAuthorities()) {
-                addFeaturesForAuthority(authority, builder);
-            }
-            result = builder.build();
+            result = resolveFeaturesHolder((Authentication) principal);
         }
         return result;
     }
 
+    /**
+     * Resolves {@link FeaturesHolder} owning the features granted to given authentication.
+     *
+     * @param authentication the authentication
+     * @return {@link FeaturesHolder} owning the features granted to given authentication
+     */
+    @Nonnull
+    FeaturesHolder resolveFeaturesHolder(@Nonnull final Authentication authentication) {
+        final FeaturesMapping snapshot = mapping;
+        return cache.get(keyOf(snapshot, authentication), snapshot.getVersion(),
+            candidate -> createFeaturesHolder(snapshot, candidate));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -84,35 +263,128 @@ public final class FeaturesHolderMethodArgumentResolver implements ApplicationCo
         }
 
         // ... and mutate the field.
-        this.context = context;
+        synchronized (this) {
+            destroy();
+            this.context = context;
+            publish(mapping.withVersion(mapping.getVersion() + 1));
+            FeatureRebinding.register(classLoaderOf(context), binder);
+        }
     }
 
     /**
+     * Sets the factory used for creating the holders.
+     *
+     * <p>
+     * Factory is used as given, so holders having equal features are shared between tenants only if it is
+     * {@link FeaturesHolderFactory#interning() interning}.
+     * </p>
+     *
      * @param factory the factory to set
      */
     public void setFeaturesHolderFactory(@Nonnull final FeaturesHolderFactory factory) {
 
         // Verify method requirements, ...
-        if (null == context) {
+        if (null == factory) {
             throw new IllegalArgumentException("Factory is required.");
         }
 
         // ... and mutate the field.
-        this.factory = factory;
+        synchronized (this) {
+            this.factory = factory;
+            publish(mapping.withVersion(mapping.getVersion() + 1));
+        }
     }
 
     /**
      * @param featuresMap mapping between granted authority and set of features
      */
     public void setFeaturesMap(@Nonnull final Map<GrantedAuthority, Set<Class<?>>> featuresMap) {
+        reloadFeaturesMap(() -> featuresMap);
+    }
+
+    /**
+     * @param maximumSize maximum number of resolved {@link FeaturesHolder} instances kept in the cache
+     */
+    public void setMaximumCacheSize(final int maximumSize) {
+        final FeaturesHolderCache<FeaturesHolderKey> resized =
+            new FeaturesHolderCache<>(maximumSize, FeaturesHolderKey::copy);
+
+        // Cache is replaced under the same lock as the mapping, so concurrent publication invalidates the new one.
+        synchronized (this) {
+            cache = resized;
+        }
+    }
+
+    /**
+     * @param maximumTenantCount maximum number of the tenants having specific mapping
+     */
+    public void setMaximumTenantCount(final int maximumTenantCount) {
 
         // Verify method requirements, ...
-        if (null == featuresMap) {
-            throw new IllegalArgumentException("Features map is required.");
+        if (maximumTenantCount < 0) {
+            throw new IllegalArgumentException("Maximum tenant count shouldn't be negative.");
+        }
+
+        // ... and mutate the field.
+        this.maximumTenantCount = maximumTenantCount;
+    }
+
+    /**
+     * @param roleHierarchy role hierarchy used for expanding the granted authorities (may be {@code null})
+     */
+    public void setRoleHierarchy(@Nullable final RoleHierarchy roleHierarchy) {
+        synchronized (this) {
+            publish(mapping.withRoleHierarchy(roleHierarchy, mapping.getVersion() + 1));
+        }
+    }
+
+    /**
+     * Replaces the mapping between granted authorities and features used for given tenant.
+     *
+     * @param tenant      the tenant
+     * @param featuresMap mapping between granted authority and set of features for given tenant, or {@code null}
+     *                    if the tenant should use the default mapping
+     * @return version of the mapping published by this method
+     * @throws IllegalStateException if given tenant has no specific mapping yet, and the maximum number of such
+     *                               tenants is reached
+     */
+    public long setTenantFeaturesMap(@Nonnull final Object tenant,
+                                     @Nullable final Map<GrantedAuthority, Set<Class<?>>> featuresMap) {
+
+        // Verify method requirements, ...
+        if (null == tenant) {
+            throw new IllegalArgumentException("Tenant is required.");
+        }
+
+        // ... and do the work.
+        synchronized (this) {
+            if ((null != featuresMap) && (null == mapping.tenantOf(tenant))
+                && (mapping.getTenantCount() >= maximumTenantCount)) {
+                throw new IllegalStateException("Maximum number of tenants (" + maximumTenantCount + ") is reached.");
+            }
+            final FeaturesMapping snapshot =
+                mapping.withTenantFeaturesMap(tenant, featuresMap, mapping.getVersion() + 1);
+            publish(snapshot);
+            return snapshot.getVersion();
+        }
+    }
+
+    /**
+     * @param tenantKeyExtractor function determining the tenant of given authentication ({@code null} tenant uses
+     *                           the default mapping)
+     */
+    public void setTenantKeyExtractor(@Nonnull final Function<? super Authentication, ?> tenantKeyExtractor) {
+
+        // Verify method requirements, ...
+        if (null == tenantKeyExtractor) {
+            throw new IllegalArgumentException("Tenant key extractor is required.");
         }
 
         // ... and mutate the field.
-        this.featuresMap = new LinkedHashMap<>(featuresMap);
+        synchronized (this) {
+            this.tenantKeyExtractor = tenantKeyExtractor;
+            publish(mapping.withVersion(mapping.getVersion() + 1));
+        }
     }
 
     /**
@@ -0,0 +1,234 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.GrantedAuthority;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned snapshot of the mapping between granted authorities and features.
+ *
+ * <p>
+ * Snapshot is never modified, new snapshot (having higher version) is published instead, so the readers can use it
+ * without locking. Caches derived from the snapshot should drop the entries created for other versions.
+ * </p>
+ *
+ * <p>
+ * Snapshot holds the default mapping, and optional mappings specific for some tenants - tenants having no specific
+ * mapping use the default one. Features of all the mappings are bound together, so equal holders can be shared
+ * between tenants.
+ * </p>
+ *
+ * <p>
+ * If the role hierarchy is given, features of each authority include the features of all the authorities reachable
+ * from it. Such closures are computed once for the authorities present in the mapping (when the snapshot is created),
+ * and shared by all the snapshots holding the same mapping. Closures of other authorities (ex. specific for single
+ * user) are computed on each use, so they don't accumulate - holders created from them are cached anyway.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class FeaturesMapping {
+
+    /**
+     * Key of the default mapping.
+     */
+    private static final Object DEFAULT_TENANT = new Object();
+
+    private volatile FeatureBindings bindings;
+
+    private final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> closures;
+
+    private final RoleHierarchy roleHierarchy;
+
+    private final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> tables;
+
+    private final long version;
+
+    private FeaturesMapping(final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> tables,
+                            final RoleHierarchy roleHierarchy,
+                            final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> closures,
+                            final long version) {
+        super();
+        this.tables = tables;
+        this.roleHierarchy = roleHierarchy;
+        this.closures = closures;
+        this.version = version;
+    }
+
+    private static Map<GrantedAuthority, Set<Class<?>>> copyOf(final Map<GrantedAuthority, Set<Class<?>>> featuresMap) {
+        final Map<GrantedAuthority, Set<Class<?>>> copy = new LinkedHashMap<>();
+        featuresMap.forEach((authority, features) -> copy.put(authority,
+            Collections.unmodifiableSet(new LinkedHashSet<>(features))));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return empty snapshot, having version 0
+     */
+    @Nonnull
+    static FeaturesMapping empty() {
+        return new FeaturesMapping(Collections.singletonMap(DEFAULT_TENANT, Collections.emptyMap()), null,
+            Collections.emptyMap(), 0L);
+    }
+
+    private static FeaturesMapping derive(final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> tables,
+                                          final RoleHierarchy roleHierarchy, final long version) {
+        final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> closures = new LinkedHashMap<>();
+        if (null != roleHierarchy) {
+            tables.forEach((tenant, table) -> {
+                final Map<GrantedAuthority, Set<Class<?>>> closure = new LinkedHashMap<>();
+                table.keySet().forEach(authority -> closure.put(authority, expand(roleHierarchy, table, authority)));
+                closures.put(tenant, closure);
+            });
+        }
+        return new FeaturesMapping(Collections.unmodifiableMap(tables), roleHierarchy,
+            Collections.unmodifiableMap(closures), version);
+    }
+
+    private static Set<Class<?>> expand(final RoleHierarchy roleHierarchy,
+                                        final Map<GrantedAuthority, Set<Class<?>>> table,
+                                        final GrantedAuthority authority) {
+        final Set<Class<?>> result = new LinkedHashSet<>();
+        for (final GrantedAuthority reachable : roleHierarchy.getReachableGrantedAuthorities(
+            Collections.singleton(authority))) {
+            result.addAll(table.getOrDefault(reachable, Collections.emptySet()));
+        }
+        result.addAll(table.getOrDefault(authority, Collections.emptySet()));
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Retrieves the bindings between features of this snapshot and their handlers, binding them if needed.
+     *
+     * @param context application context providing feature handlers
+     * @return the bindings between features of this snapshot and their handlers
+     */
+    @Nonnull
+    FeatureBindings getBindings(@Nonnull final ApplicationContext context) {
+        FeatureBindings result = bindings;
+        if (null == result) {
+            final Collection<Set<Class<?>>> features = new ArrayList<>();
+            tables.values().forEach(table -> features.addAll(table.values()));
+            result = FeatureBindings.bind(context, features);
+            bindings = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param tenant    the tenant (may be {@code null})
+     * @param authority granted authority
+     * @return set of features assigned to given authority, or any authority reachable from it, by the mapping of
+     * given tenant (empty, if there are no such features)
+     */
+    @Nonnull
+    Set<Class<?>> getFeatures(@Nullable final Object tenant, @Nonnull final GrantedAuthority authority) {
+        final Object key = ((null != tenant) && tables.containsKey(tenant)) ? tenant : DEFAULT_TENANT;
+        final Map<GrantedAuthority, Set<Class<?>>> table = tables.get(key);
+        if (null == roleHierarchy) {
+            return table.getOrDefault(authority, Collections.emptySet());
+        }
+        final Set<Class<?>> closure = closures.get(key).get(authority);
+        return (null == closure) ? expand(roleHierarchy, table, authority) : closure;
+    }
+
+    /**
+     * @return number of the tenants having specific mapping
+     */
+    int getTenantCount() {
+        return tables.size() - 1;
+    }
+
+    /**
+     * @return version of this snapshot
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Determines the tenant, which mapping is used for given one.
+     *
+     * @param tenant the tenant (may be {@code null})
+     * @return given tenant, if it has specific mapping, {@code null} (representing the default mapping) otherwise
+     */
+    @Nullable
+    Object tenantOf(@Nullable final Object tenant) {
+        return ((null != tenant) && tables.containsKey(tenant)) ? tenant : null;
+    }
+
+    /**
+     * Creates new snapshot, holding given default mapping.
+     *
+     * @param featuresMap mapping between granted authority and set of features
+     * @param version     version of the new snapshot
+     * @return newly created snapshot
+     */
+    @Nonnull
+    FeaturesMapping withFeaturesMap(@Nonnull final Map<GrantedAuthority, Set<Class<?>>> featuresMap,
+                                    final long version) {
+        final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> result = new LinkedHashMap<>(tables);
+        result.put(DEFAULT_TENANT, copyOf(featuresMap));
+        return derive(result, roleHierarchy, version);
+    }
+
+    /**
+     * Creates new snapshot, using given role hierarchy.
+     *
+     * @param roleHierarchy role hierarchy used for expanding the authorities (may be {@code null})
+     * @param version       version of the new snapshot
+     * @return newly created snapshot
+     */
+    @Nonnull
+    FeaturesMapping withRoleHierarchy(@Nullable final RoleHierarchy roleHierarchy, final long version) {
+        return derive(tables, roleHierarchy, version);
+    }
+
+    /**
+     * Creates new snapshot, holding given mapping for given tenant.
+     *
+     * @param tenant      the tenant
+     * @param featuresMap mapping between granted authority and set of features for given tenant, or {@code null}
+     *                    if the tenant should use the default mapping
+     * @param version     version of the new snapshot
+     * @return newly created snapshot
+     */
+    @Nonnull
+    FeaturesMapping withTenantFeaturesMap(@Nonnull final Object tenant,
+                                          @Nullable final Map<GrantedAuthority, Set<Class<?>>> featuresMap,
+                                          final long version) {
+        final Map<Object, Map<GrantedAuthority, Set<Class<?>>>> result = new LinkedHashMap<>(tables);
+        if (null == featuresMap) {
+            result.remove(tenant);
+        } else {
+            result.put(tenant, copyOf(featuresMap));
+        }
+        return derive(result, roleHierarchy, version);
+    }
+
+    /**
+     * Creates new snapshot, holding the same mapping, but having given version (and no features bound yet).
+     *
+     * @param version version of the new snapshot
+     * @return newly created snapshot
+     */
+    @Nonnull
+    FeaturesMapping withVersion(final long version) {
+        return new FeaturesMapping(tables, roleHierarchy, closures, version);
+    }
+
+}
@@ -0,0 +1,82 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import pl.ais.commons.application.feature.FeaturesHolder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides possibility of resolving reactive handler method arguments of type {@link FeaturesHolder}.
+ *
+ * <p>
+ * Authentication is taken from the reactive security context (or from the exchange principal, if there is no such
+ * context), and {@link FeaturesHolder} is resolved by given {@link FeaturesHolderMethodArgumentResolver}, so both
+ * resolvers use the same factory, features map and cache of resolved holders. Holders found in the cache are
+ * returned immediately, other ones are resolved on {@link Schedulers#boundedElastic() bounded elastic} scheduler, so
+ * the event loop never touches the bean factory (ex. when the handlers are created).
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class ReactiveFeaturesHolderMethodArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final FeaturesHolderMethodArgumentResolver delegate;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param delegate resolver providing the factory, features map and cache of resolved holders
+     */
+    public ReactiveFeaturesHolderMethodArgumentResolver(@Nonnull final FeaturesHolderMethodArgumentResolver delegate) {
+        super();
+
+        // Verify constructor requirements, ...
+        if (null == delegate) {
+            throw new IllegalArgumentException("Delegate is required.");
+        }
+
+        // ... and initialize this instance fields.
+        this.delegate = delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @Override
+    public Mono<Object> resolveArgument(@Nonnull final MethodParameter parameter,
+                                        @Nonnull final BindingContext bindingContext,
+                                        @Nonnull final ServerWebExchange exchange) {
+        return ReactiveSecurityContextHolder.getContext()
+                                            .flatMap(context -> Mono.justOrEmpty(context.getAuthentication()))
+                                            .switchIfEmpty(exchange.getPrincipal().ofType(Authentication.class))
+                                            .flatMap(this::resolveFeaturesHolder);
+    }
+
+    private Mono<FeaturesHolder> resolveFeaturesHolder(final Authentication authentication) {
+        final FeaturesHolder cached = delegate.findFeaturesHolder(authentication);
+        return (null != cached) ? Mono.just(cached)
+            : Mono.fromCallable(() -> delegate.resolveFeaturesHolder(authentication))
+                  .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsParameter(@Nonnull final MethodParameter parameter) {
+        return delegate.supportsParameter(parameter);
+    }
+
+}
@@ -0,0 +1,125 @@
+package pl.ais.commons.application.feature.spring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import pl.ais.commons.application.feature.FeatureSet;
+import pl.ais.commons.application.feature.FeaturesHolder;
+import pl.ais.commons.application.feature.RequiresFeature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rejects the requests handled by methods annotated with {@link RequiresFeature}, if the requesting user doesn't own
+ * all of the required features.
+ *
+ * <p>
+ * Requirements of all the handler methods known to {@link RequestMappingHandlerMapping} beans are computed once,
+ * when the application context is refreshed (methods registered later are examined on first use), so checking
+ * the request is a map lookup (by the controller type and the method, as inherited method may be served by many
+ * controllers having different requirements) followed by {@link FeatureSet} query against the {@link FeaturesHolder}
+ * resolved by given {@link FeaturesHolderMethodArgumentResolver}. Rejected requests receive
+ * {@link HttpServletResponse#SC_FORBIDDEN} response.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class RequiresFeatureInterceptor implements ApplicationListener<ContextRefreshedEvent>,
+    HandlerInterceptor {
+
+    private static final FeatureSet NO_REQUIREMENTS = FeatureSet.of();
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, FeatureSet>> requirements = new ConcurrentHashMap<>();
+
+    private final FeaturesHolderMethodArgumentResolver resolver;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param resolver resolver providing {@link FeaturesHolder} for the requesting user
+     */
+    public RequiresFeatureInterceptor(@Nonnull final FeaturesHolderMethodArgumentResolver resolver) {
+        super();
+
+        // Verify constructor requirements, ...
+        if (null == resolver) {
+            throw new IllegalArgumentException("Resolver is required.");
+        }
+
+        // ... and initialize this instance fields.
+        this.resolver = resolver;
+    }
+
+    private static FeatureSet requirementsOf(final HandlerMethod handlerMethod) {
+        final List<Class<?>> features = new ArrayList<>();
+        final RequiresFeature typeRequirements =
+            AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequiresFeature.class);
+        if (null != typeRequirements) {
+            features.addAll(Arrays.asList(typeRequirements.value()));
+        }
+        final RequiresFeature methodRequirements = handlerMethod.getMethodAnnotation(RequiresFeature.class);
+        if (null != methodRequirements) {
+            features.addAll(Arrays.asList(methodRequirements.value()));
+        }
+        return features.isEmpty() ? NO_REQUIREMENTS : FeatureSet.of(features);
+    }
+
+    private FeatureSet requirementsFor(final HandlerMethod handlerMethod) {
+        return requirements.computeIfAbsent(handlerMethod.getBeanType(), __ -> new ConcurrentHashMap<>())
+                           .computeIfAbsent(handlerMethod.getMethod(), __ -> requirementsOf(handlerMethod));
+    }
+
+    /**
+     * Computes the requirements of all handler methods known to {@link RequestMappingHandlerMapping} beans.
+     *
+     * @param event the event to respond to
+     */
+    @Override
+    public void onApplicationEvent(@Nonnull final ContextRefreshedEvent event) {
+        for (final RequestMappingHandlerMapping mapping : event.getApplicationContext()
+                                                               .getBeansOfType(RequestMappingHandlerMapping.class)
+                                                               .values()) {
+            mapping.getHandlerMethods().values().forEach(this::requirementsFor);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    public boolean preHandle(@Nonnull final HttpServletRequest request, @Nonnull final HttpServletResponse response,
+                             @Nonnull final Object handler) throws Exception {
+        boolean result = true;
+        if (handler instanceof HandlerMethod) {
+            final FeatureSet required = requirementsFor((HandlerMethod) handler);
+            if (!required.isEmpty()) {
+                final Principal principal = request.getUserPrincipal();
+                result = (principal instanceof Authentication)
+                    && resolver.resolveFeaturesHolder((Authentication) principal).hasAllFeatures(required);
+                if (!result) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                }
+            }
+        }
+        return result;
+    }
+
+}
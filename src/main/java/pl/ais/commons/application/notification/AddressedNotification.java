@@ -9,18 +9,19 @@ import javax.annotation.concurrent.Immutable;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.function.BinaryOperator;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
-import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toMap;
-import static pl.ais.commons.application.util.ArrayUtils.streamOf;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Addressed notification.
@@ -36,6 +37,9 @@ public final class AddressedNotification implements Serializable {
 
     private final Notification notification;
 
+    /**
+     * Recipients of the notification, grouped by the address type (see {@link Recipients}).
+     */
     private final Map<String, AddressType> recipients;
 
     /**
@@ -44,10 +48,14 @@ public final class AddressedNotification implements Serializable {
      * @param builder the builder providing all information required for creating the notification instance
      */
     AddressedNotification(final Builder builder) {
+        this(builder.notification, builder.recipients());
+    }
+
+    private AddressedNotification(final Notification notification, final Recipients recipients) {
         super();
 
-        notification = builder.notification;
-        recipients = new LinkedHashMap<>(builder.recipients);
+        this.notification = notification;
+        this.recipients = recipients;
     }
 
     /**
@@ -90,13 +98,30 @@ public final class AddressedNotification implements Serializable {
     }
 
     /**
-     * @return stream of the recipients of the desired type
+     * @return stream of the recipients of the desired type, in the order of adding
      */
     public Stream<String> getRecipients(@Nonnull final AddressType desiredType) {
-        return recipients.entrySet()
-                         .stream()
-                         .filter(candidate -> desiredType == candidate.getValue())
-                         .map(Entry::getKey);
+        return Arrays.stream(((Recipients) recipients).get(desiredType));
+    }
+
+    /**
+     * Returns the recipients of the desired type, converted using given converter (ex. parsed).
+     *
+     * <p>
+     * Result of the conversion is cached for subsequent calls using the same converter instance (ex. held by
+     * the constant), each call returns the copy of it. Elements of the result are shared by the copies, so they
+     * shouldn't be modified.
+     * </p>
+     *
+     * @param desiredType the address type
+     * @param converter   the converter, converting the array of the recipients
+     * @param <T>         type of converted recipients
+     * @return converted recipients of the desired type
+     * @since 1.3.4
+     */
+    public <T> T[] getRecipients(@Nonnull final AddressType desiredType,
+                                 @Nonnull final Function<? super String[], T[]> converter) {
+        return ((Recipients) recipients).convert(desiredType, converter);
     }
 
     /**
@@ -130,6 +155,40 @@ public final class AddressedNotification implements Serializable {
         validateState();
     }
 
+    private Object readResolve() {
+
+        // Recipients are serialized as ordinary map, group them again.
+        return (recipients instanceof Recipients) ? this
+            : new AddressedNotification(notification, Recipients.copyOf(recipients));
+    }
+
+    /**
+     * Splits this notification into the notifications having limited number of the recipients.
+     *
+     * <p>
+     * Recipients are split in the order of the address types ({@link AddressType#PRIMARY} ones first), so each of
+     * created notifications shows its own primary and CC recipients only. All of them share the notification content.
+     * </p>
+     *
+     * @param maximumRecipients maximum number of the recipients of single notification
+     * @return list of the notifications having limited number of the recipients (holding this notification only,
+     * if it doesn't exceed the limit)
+     * @since 1.3.4
+     */
+    @Nonnull
+    public List<AddressedNotification> split(final int maximumRecipients) {
+
+        // Verify method requirements, ...
+        if (maximumRecipients <= 0) {
+            throw new IllegalArgumentException("Maximum number of recipients should be positive.");
+        }
+
+        // ... and do the work.
+        final List<Recipients> chunks = ((Recipients) recipients).split(maximumRecipients);
+        return (1 == chunks.size()) ? List.of(this)
+            : chunks.stream().map(chunk -> new AddressedNotification(notification, chunk)).collect(toList());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -154,6 +213,8 @@ public final class AddressedNotification implements Serializable {
 
         private final Notification notification;
 
+        private Recipients built;
+
         private final Map<String, AddressType> recipients;
 
         Builder(final Notification notification) {
@@ -193,10 +254,13 @@ public final class AddressedNotification implements Serializable {
             return new AddressedNotification(this);
         }
 
-        private <T> BinaryOperator<T> throwingMerger() {
-            return (u, v) -> {
-                throw new IllegalStateException(String.format("Duplicate value found: %s", u));
-            };
+        private Recipients recipients() {
+
+            // Notifications created without modifying the builder in between share the recipients.
+            if (null == built) {
+                built = Recipients.copyOf(recipients);
+            }
+            return built;
         }
 
         /**
@@ -211,9 +275,24 @@ public final class AddressedNotification implements Serializable {
         }
 
         private Builder withRecipients(final AddressType type, final String first, final String... rest) {
-            final Map<String, AddressType> toBeAdded = streamOf(String.class, first, rest).collect(
-                toMap(identity(), __ -> type, throwingMerger(), LinkedHashMap::new));
-            recipients.putAll(toBeAdded);
+
+            // Verify method requirements (given recipients should be distinct), ...
+            if (rest.length > 0) {
+                final Set<String> distinct = new HashSet<>(2 * (rest.length + 1));
+                distinct.add(first);
+                for (final String recipient : rest) {
+                    if (!distinct.add(recipient)) {
+                        throw new IllegalStateException(String.format("Duplicate value found: %s", recipient));
+                    }
+                }
+            }
+
+            // ... and do the work.
+            built = null;
+            recipients.put(first, type);
+            for (final String recipient : rest) {
+                recipients.put(recipient, type);
+            }
             return this;
         }
 
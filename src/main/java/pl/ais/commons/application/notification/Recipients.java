@@ -0,0 +1,239 @@
+package pl.ais.commons.application.notification;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Immutable map of the recipients to their address types, storing the recipients grouped by the address type.
+ *
+ * <p>
+ * Recipients of each type are held in the array, available without filtering all the recipients. Results of
+ * converting these arrays (ex. parsing the addresses) may be cached with the recipients. Map is iterated in
+ * the order of adding the recipients, and serialized as {@link LinkedHashMap}, so the serialized form of
+ * {@link AddressedNotification} doesn't depend on it.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class Recipients extends AbstractMap<String, AddressType> implements Serializable {
+
+    private static final long serialVersionUID = 2117914066390778546L;
+
+    private static final AddressType[] TYPES = AddressType.values();
+
+    private final String[][] byType;
+
+    private transient volatile Map<String, AddressType> index;
+
+    private transient volatile Conversion conversion;
+
+    private final String[] recipients;
+
+    private final AddressType[] types;
+
+    private Recipients(final String[][] byType, final String[] recipients, final AddressType[] types) {
+        super();
+        this.byType = byType;
+        this.recipients = recipients;
+        this.types = types;
+    }
+
+    /**
+     * Creates and returns the recipients holding the entries of given map.
+     *
+     * @param recipients map of the recipients to their address types
+     * @return newly created recipients holding the entries of given map
+     */
+    static Recipients copyOf(@Nonnull final Map<String, AddressType> recipients) {
+        final int[] counts = new int[TYPES.length];
+        recipients.values().forEach(type -> counts[type.ordinal()]++);
+        final String[][] byType = new String[TYPES.length][];
+        for (int ordinal = 0; ordinal < TYPES.length; ordinal++) {
+            byType[ordinal] = new String[counts[ordinal]];
+            counts[ordinal] = 0;
+        }
+        final String[] ordered = new String[recipients.size()];
+        final AddressType[] types = new AddressType[ordered.length];
+        int index = 0;
+        for (final Entry<String, AddressType> entry : recipients.entrySet()) {
+            final int ordinal = entry.getValue().ordinal();
+            byType[ordinal][counts[ordinal]++] = entry.getKey();
+            ordered[index] = entry.getKey();
+            types[index++] = entry.getValue();
+        }
+        return new Recipients(byType, ordered, types);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return index().containsKey(key);
+    }
+
+    /**
+     * Converts the recipients of desired type using given converter, caching the result.
+     *
+     * <p>
+     * Results of the latest converter (recognized by the identity) are cached, so the same converter instance should
+     * be used each time.
+     * </p>
+     *
+     * @param desiredType the address type
+     * @param converter   the converter
+     * @param <T>         type of converted recipients
+     * @return copy of converted recipients of desired type
+     */
+    @SuppressWarnings("unchecked")
+    <T> T[] convert(@Nonnull final AddressType desiredType, @Nonnull final Function<? super String[], T[]> converter) {
+        Conversion current = conversion;
+        if ((null == current) || (current.converter != converter)) {
+            current = new Conversion(converter);
+            conversion = current;
+        }
+        Object[] result = current.results.get(desiredType.ordinal());
+        if (null == result) {
+
+            // Converting the same recipients many times gives the same result, so racing threads may be tolerated.
+            result = converter.apply(byType[desiredType.ordinal()].clone());
+            current.results.set(desiredType.ordinal(), result);
+        }
+        return (T[]) result.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<String, AddressType>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<String, AddressType>> iterator() {
+                return new Iterator<>() {
+
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < recipients.length;
+                    }
+
+                    @Override
+                    public Entry<String, AddressType> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int current = position++;
+                        return new SimpleImmutableEntry<>(recipients[current], types[current]);
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return recipients.length;
+            }
+
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AddressType get(final Object key) {
+        return index().get(key);
+    }
+
+    /**
+     * @param desiredType the address type
+     * @return recipients of desired type (shared, so shouldn't be modified)
+     */
+    String[] get(@Nonnull final AddressType desiredType) {
+        return byType[desiredType.ordinal()];
+    }
+
+    private Map<String, AddressType> index() {
+        Map<String, AddressType> result = index;
+        if (null == result) {
+            result = new HashMap<>(this);
+            index = result;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return recipients.length;
+    }
+
+    /**
+     * Splits the recipients into the chunks having given maximum size.
+     *
+     * @param maximumSize maximum number of the recipients in single chunk
+     * @return the chunks, holding the recipients in the order of the address types
+     */
+    List<Recipients> split(final int maximumSize) {
+        final List<Recipients> result = new ArrayList<>((recipients.length + maximumSize - 1) / maximumSize);
+        if (recipients.length <= maximumSize) {
+            result.add(this);
+        } else {
+            final Map<String, AddressType> chunk = new LinkedHashMap<>();
+            for (final AddressType type : TYPES) {
+                for (final String recipient : byType[type.ordinal()]) {
+                    chunk.put(recipient, type);
+                    if (chunk.size() == maximumSize) {
+                        result.add(copyOf(chunk));
+                        chunk.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                result.add(copyOf(chunk));
+            }
+        }
+        return result;
+    }
+
+    private Object writeReplace() {
+        return new LinkedHashMap<>(this);
+    }
+
+    /**
+     * Cached results of the conversion.
+     */
+    private static final class Conversion {
+
+        private final Function<?, ?> converter;
+
+        private final AtomicReferenceArray<Object[]> results = new AtomicReferenceArray<>(TYPES.length);
+
+        Conversion(final Function<?, ?> converter) {
+            this.converter = converter;
+        }
+
+    }
+
+}
@@ -6,11 +6,24 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 /**
  * Attachment.
  *
+ * <p>
+ * Content of the attachment may be held on-heap (as a byte array), or streamed from the {@link Source} (ex. the file,
+ * or the buffer) each time the attachment is written, without intermediate copies.
+ * </p>
+ *
  * @author Warlock, AIS.PL
  * @since 1.2.1
  */
@@ -20,7 +33,7 @@ public final class Attachment extends TypedData {
     private static final long serialVersionUID = -6711091748645366289L;
 
     /**
-     * Content of the attachment.
+     * Content of the attachment, if held on-heap.
      *
      * @serial
      * @since 1.2.1
@@ -35,12 +48,106 @@ public final class Attachment extends TypedData {
      */
     private final String name;
 
-    // TODO: consider the possible ways of attachments creating
+    /**
+     * Source of the attachment content, if streamed.
+     *
+     * @serial
+     * @since 1.3.4
+     */
+    private final Source source;
+
     Attachment(@Nonnull final String contentType, @Nonnull final String name, @Nonnull final byte[] content) {
         super(contentType);
 
         this.content = content.clone();
         this.name = name;
+        this.source = null;
+    }
+
+    private Attachment(@Nonnull final String contentType, @Nonnull final String name, @Nonnull final Source source) {
+        super(contentType);
+
+        this.content = null;
+        this.name = name;
+        this.source = source;
+    }
+
+    /**
+     * Creates and returns new {@link Attachment} instance holding (a copy of) given content.
+     *
+     * @param contentType the content type
+     * @param name        name of the attachment
+     * @param content     content of the attachment
+     * @return newly created {@link Attachment} instance holding given content
+     * @since 1.3.4
+     */
+    public static Attachment attachment(@Nonnull final String contentType, @Nonnull final String name,
+                                        @Nonnull final byte[] content) {
+        Objects.requireNonNull(name, "Attachment name is required.");
+        Objects.requireNonNull(content, "Attachment content is required.");
+        return new Attachment(contentType, name, content);
+    }
+
+    /**
+     * Creates and returns new {@link Attachment} instance backed by given buffer.
+     *
+     * <p>
+     * Content is read directly from the buffer (from its current position up to its limit) each time it is needed,
+     * so the buffer shouldn't be modified afterwards. Serialized form of the attachment holds the content.
+     * </p>
+     *
+     * @param contentType the content type
+     * @param name        name of the attachment
+     * @param content     content of the attachment
+     * @return newly created {@link Attachment} instance backed by given buffer
+     * @since 1.3.4
+     */
+    public static Attachment attachment(@Nonnull final String contentType, @Nonnull final String name,
+                                        @Nonnull final ByteBuffer content) {
+        Objects.requireNonNull(name, "Attachment name is required.");
+        Objects.requireNonNull(content, "Attachment content is required.");
+        return new Attachment(contentType, name, new BufferSource(content.asReadOnlyBuffer()));
+    }
+
+    /**
+     * Creates and returns new {@link Attachment} instance backed by given file.
+     *
+     * <p>
+     * File is read each time the content is needed, so it should exist until the attachment is sent. Serialized form
+     * of the attachment holds the path of the file only.
+     * </p>
+     *
+     * @param contentType the content type
+     * @param name        name of the attachment
+     * @param file        the file holding content of the attachment
+     * @return newly created {@link Attachment} instance backed by given file
+     * @since 1.3.4
+     */
+    public static Attachment attachment(@Nonnull final String contentType, @Nonnull final String name,
+                                        @Nonnull final Path file) {
+        Objects.requireNonNull(name, "Attachment name is required.");
+        Objects.requireNonNull(file, "Attachment file is required.");
+        return new Attachment(contentType, name, new FileSource(file.toAbsolutePath().toString()));
+    }
+
+    /**
+     * Creates and returns new {@link Attachment} instance backed by given source.
+     *
+     * <p>
+     * Serialized form of the attachment holds the source, so it should refer the content, not hold it.
+     * </p>
+     *
+     * @param contentType the content type
+     * @param name        name of the attachment
+     * @param source      source of the attachment content
+     * @return newly created {@link Attachment} instance backed by given source
+     * @since 1.3.4
+     */
+    public static Attachment attachment(@Nonnull final String contentType, @Nonnull final String name,
+                                        @Nonnull final Source source) {
+        Objects.requireNonNull(name, "Attachment name is required.");
+        Objects.requireNonNull(source, "Attachment source is required.");
+        return new Attachment(contentType, name, source);
     }
 
     /**
@@ -57,8 +164,8 @@ public final class Attachment extends TypedData {
      * {@inheritDoc}
      */
     @Override
-    public InputStream getInputStream() {
-        return new ByteArrayInputStream(content);
+    public InputStream getInputStream() throws IOException {
+        return (null == source) ? new ByteArrayInputStream(content) : source.openStream();
     }
 
     /**
@@ -80,7 +187,8 @@ public final class Attachment extends TypedData {
 
     @Override
     public String toString() {
-        return String.format("Attachment of type: %s, and size: %d", getContentType(), content.length);
+        return (null == source) ? String.format("Attachment of type: %s, and size: %d", getContentType(), content.length)
+            : String.format("Attachment of type: %s, backed by: %s", getContentType(), source);
     }
 
     @Override
@@ -88,6 +196,124 @@ public final class Attachment extends TypedData {
         super.validateState();
 
         Objects.requireNonNull(name, "Attachment name is required.");
-        Objects.requireNonNull(content, "Attachment content is required.");
+        if ((null == content) == (null == source)) {
+            throw new IllegalStateException("Either attachment content or source is required.");
+        }
+    }
+
+    /**
+     * Source of the attachment content.
+     *
+     * <p>
+     * Source is serialized together with the attachment, so it should be a reference to the content (ex. an
+     * identifier of the document in the repository), rather than the content itself.
+     * </p>
+     *
+     * @since 1.3.4
+     */
+    @FunctionalInterface
+    public interface Source extends Serializable {
+
+        /**
+         * Opens the stream of the attachment content.
+         *
+         * @return newly opened stream of the attachment content
+         * @throws IOException if the stream cannot be opened
+         */
+        InputStream openStream() throws IOException;
+
+    }
+
+    /**
+     * Source reading the content from the buffer.
+     */
+    private static final class BufferSource implements Source {
+
+        private static final long serialVersionUID = 4302384123585946327L;
+
+        private transient ByteBuffer buffer;
+
+        BufferSource(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public InputStream openStream() {
+            final ByteBuffer content = buffer.duplicate();
+            return new InputStream() {
+
+                @Override
+                public int available() {
+                    return content.remaining();
+                }
+
+                @Override
+                public int read() {
+                    return content.hasRemaining() ? (content.get() & 0xFF) : -1;
+                }
+
+                @Override
+                public int read(final byte[] bytes, final int offset, final int length) {
+                    if (!content.hasRemaining()) {
+                        return (0 == length) ? 0 : -1;
+                    }
+                    final int count = Math.min(length, content.remaining());
+                    content.get(bytes, offset, count);
+                    return count;
+                }
+
+            };
+        }
+
+        private void readObject(final ObjectInputStream objectStream) throws IOException, ClassNotFoundException {
+            objectStream.defaultReadObject();
+            final byte[] bytes = new byte[objectStream.readInt()];
+            objectStream.readFully(bytes);
+            buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("buffer of size: %d", buffer.remaining());
+        }
+
+        private void writeObject(final ObjectOutputStream objectStream) throws IOException {
+            objectStream.defaultWriteObject();
+            final ByteBuffer content = buffer.duplicate();
+            objectStream.writeInt(content.remaining());
+            final byte[] chunk = new byte[Math.min(content.remaining(), 8192)];
+            while (content.hasRemaining()) {
+                final int count = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, count);
+                objectStream.write(chunk, 0, count);
+            }
+        }
+
     }
+
+    /**
+     * Source reading the content from the file.
+     */
+    private static final class FileSource implements Source {
+
+        private static final long serialVersionUID = -2146907216838209585L;
+
+        private final String path;
+
+        FileSource(final String path) {
+            this.path = path;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Channels.newInputStream(FileChannel.open(Paths.get(path), StandardOpenOption.READ));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("file: %s", path);
+        }
+
+    }
+
 }
@@ -0,0 +1,333 @@
+package pl.ais.commons.application.notification.component;
+
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store of attachment contents.
+ *
+ * <p>
+ * Each content is stored once, in the file named after its SHA-256 hash, so the same content attached to many
+ * notifications occupies the disk space once, and attachments created by the store (see {@link #attachment(String,
+ * String, byte[])}) refer the content by the hash (also in their serialized form). Recently used contents (small
+ * enough) are held in memory, up to given capacity.
+ * </p>
+ *
+ * <p>
+ * There is single store instance for each directory, so the attachments deserialized in the same JVM share its
+ * memory cache.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class BlobStore {
+
+    private static final long DEFAULT_MEMORY_CAPACITY = 64L << 20;
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final ConcurrentMap<Path, BlobStore> STORES = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cachedBytes;
+
+    private final Path directory;
+
+    private final long memoryCapacity;
+
+    private BlobStore(final Path directory, final long memoryCapacity) {
+        super();
+        this.directory = directory;
+        this.memoryCapacity = memoryCapacity;
+    }
+
+    /**
+     * Opens the store located in given directory (creating the directory if needed).
+     *
+     * @param directory the directory holding stored contents
+     * @return the store located in given directory
+     */
+    @Nonnull
+    public static BlobStore open(@Nonnull final Path directory) {
+        return open(directory, DEFAULT_MEMORY_CAPACITY);
+    }
+
+    /**
+     * Opens the store located in given directory (creating the directory if needed).
+     *
+     * @param directory      the directory holding stored contents
+     * @param memoryCapacity maximum number of bytes held in memory (used if the store isn't opened already)
+     * @return the store located in given directory
+     */
+    @Nonnull
+    public static BlobStore open(@Nonnull final Path directory, final long memoryCapacity) {
+
+        // Verify method requirements, ...
+        if (null == directory) {
+            throw new IllegalArgumentException("Directory is required.");
+        }
+        if (memoryCapacity < 0) {
+            throw new IllegalArgumentException("Memory capacity shouldn't be negative.");
+        }
+
+        // ... and do the work.
+        return STORES.computeIfAbsent(directory.toAbsolutePath().normalize(), path -> {
+            try {
+                Files.createDirectories(path);
+            } catch (final IOException exception) {
+                throw new NotificationException(exception);
+            }
+            return new BlobStore(path, memoryCapacity);
+        });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Stores given content (if not stored already), and creates the attachment referring it.
+     *
+     * @param contentType the content type
+     * @param name        name of the attachment
+     * @param content     content of the attachment
+     * @return newly created attachment referring stored content
+     */
+    @Nonnull
+    public Attachment attachment(@Nonnull final String contentType, @Nonnull final String name,
+                                 @Nonnull final byte[] content) {
+        return Attachment.attachment(contentType, name, new BlobSource(directory.toString(), put(content)));
+    }
+
+    /**
+     * Creates the attachment referring stored content.
+     *
+     * @param contentType the content type
+     * @param name        name of the attachment
+     * @param hash        SHA-256 hash of the content (as returned by {@link #put(byte[])})
+     * @return newly created attachment referring stored content
+     */
+    @Nonnull
+    public Attachment attachment(@Nonnull final String contentType, @Nonnull final String name,
+                                 @Nonnull final String hash) {
+
+        // Verify method requirements, ...
+        if (!contains(hash)) {
+            throw new IllegalArgumentException("Content having given hash isn't stored.");
+        }
+
+        // ... and do the work.
+        return Attachment.attachment(contentType, name, new BlobSource(directory.toString(), hash));
+    }
+
+    private void cache(final String hash, final byte[] content) {
+        if (content.length <= memoryCapacity / 8) {
+            synchronized (cache) {
+                if (null == cache.put(hash, content)) {
+                    cachedBytes += content.length;
+                }
+                for (final Iterator<byte[]> iterator = cache.values().iterator();
+                     (cachedBytes > memoryCapacity) && iterator.hasNext(); ) {
+                    cachedBytes -= iterator.next().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies if the content having given hash is stored.
+     *
+     * @param hash SHA-256 hash of the content (as lower case hexadecimal string)
+     * @return {@code true} if the content having given hash is stored, {@code false} otherwise
+     */
+    public boolean contains(@Nonnull final String hash) {
+        return Files.exists(pathOf(hash));
+    }
+
+    /**
+     * @return the directory holding stored contents
+     */
+    @Nonnull
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void moveOrDiscard(final Path temporary, final Path path) throws IOException {
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final FileAlreadyExistsException exception) {
+
+            // Same content was stored concurrently.
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Opens the stream of the content having given hash.
+     *
+     * @param hash SHA-256 hash of the content (as lower case hexadecimal string)
+     * @return newly opened stream of the content
+     * @throws IOException if the content cannot be read (ex. it isn't stored)
+     */
+    @Nonnull
+    public InputStream openStream(@Nonnull final String hash) throws IOException {
+        byte[] content;
+        synchronized (cache) {
+            content = cache.get(hash);
+        }
+        if (null == content) {
+            final Path path = pathOf(hash);
+            if (Files.size(path) > memoryCapacity / 8) {
+                return Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ));
+            }
+            content = Files.readAllBytes(path);
+            cache(hash, content);
+        }
+        return new ByteArrayInputStream(content);
+    }
+
+    private Path pathOf(final String hash) {
+
+        // Verify method requirements (hash is used as the file name), ...
+        if ((null == hash) || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("SHA-256 hash (as lower case hexadecimal string) is required.");
+        }
+
+        // ... and do the work.
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Stores given content, if not stored already.
+     *
+     * @param content the content to be stored
+     * @return SHA-256 hash of the content (as lower case hexadecimal string)
+     */
+    @Nonnull
+    public String put(@Nonnull final byte[] content) {
+
+        // Verify method requirements, ...
+        if (null == content) {
+            throw new IllegalArgumentException("Content is required.");
+        }
+
+        // ... and do the work.
+        final String hash = HexFormat.of().formatHex(sha256().digest(content));
+        final Path path = pathOf(hash);
+        if (!Files.exists(path)) {
+            try {
+                Files.createDirectories(path.getParent());
+                final Path temporary = Files.createTempFile(path.getParent(), hash, ".tmp");
+                try {
+                    Files.write(temporary, content);
+                    moveOrDiscard(temporary, path);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (final IOException exception) {
+                throw new NotificationException(exception);
+            }
+        }
+
+        // Caller may modify the array later, so the copy of it is cached.
+        cache(hash, content.clone());
+        return hash;
+    }
+
+    /**
+     * Stores the content read from given stream, if not stored already.
+     *
+     * @param input the stream providing the content to be stored (not closed by this method)
+     * @return SHA-256 hash of the content (as lower case hexadecimal string)
+     */
+    @Nonnull
+    public String put(@Nonnull final InputStream input) {
+
+        // Verify method requirements, ...
+        if (null == input) {
+            throw new IllegalArgumentException("Input stream is required.");
+        }
+
+        // ... and do the work.
+        try {
+            final Path temporary = Files.createTempFile(directory, "blob", ".tmp");
+            try {
+                final MessageDigest digest = sha256();
+                try (OutputStream output = new DigestOutputStream(Files.newOutputStream(temporary), digest)) {
+                    input.transferTo(output);
+                }
+                final String hash = HexFormat.of().formatHex(digest.digest());
+                final Path path = pathOf(hash);
+                Files.createDirectories(path.getParent());
+                moveOrDiscard(temporary, path);
+                return hash;
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    /**
+     * Source reading the content from the store.
+     */
+    private static final class BlobSource implements Attachment.Source {
+
+        private static final long serialVersionUID = -3517464633411453452L;
+
+        private final String directory;
+
+        private final String hash;
+
+        BlobSource(final String directory, final String hash) {
+            this.directory = directory;
+            this.hash = hash;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return open(Paths.get(directory)).openStream(hash);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("blob: %s", hash);
+        }
+
+    }
+
+}
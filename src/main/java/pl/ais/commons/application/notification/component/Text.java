@@ -7,6 +7,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Objects;
 
 /**
@@ -39,6 +43,11 @@ public final class Text extends TypedData {
      */
     private final String content;
 
+    /**
+     * The content encoded using the charset, computed when needed for the first time.
+     */
+    private transient volatile byte[] encoded;
+
     private Text(@Nonnull final String contentType, @Nonnull final String content, @Nullable final String charsetName) {
         super(String.format("%s; charset=%s", contentType, charsetName));
 
@@ -104,6 +113,21 @@ public final class Text extends TypedData {
         visitor.visit(this);
     }
 
+    private byte[] encoded() throws UnsupportedEncodingException {
+        byte[] result = encoded;
+        if (null == result) {
+
+            // Encoding the same content many times gives the same result, so racing threads may be tolerated.
+            try {
+                result = content.getBytes(Charset.forName(charsetName));
+            } catch (final IllegalCharsetNameException | UnsupportedCharsetException exception) {
+                throw (UnsupportedEncodingException) new UnsupportedEncodingException(charsetName).initCause(exception);
+            }
+            encoded = result;
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -122,7 +146,16 @@ public final class Text extends TypedData {
      */
     @Override
     public InputStream getInputStream() throws IOException {
-        return new ByteArrayInputStream(content.getBytes(charsetName));
+        return new ByteArrayInputStream(encoded());
+    }
+
+    /**
+     * @return number of bytes of the content encoded using the charset
+     * @throws UnsupportedEncodingException if the charset is not supported
+     * @since 1.3.4
+     */
+    public int getEncodedLength() throws UnsupportedEncodingException {
+        return encoded().length;
     }
 
     /**
@@ -66,8 +66,8 @@ abstract class TypedContent implements NotificationComponent, Serializable {
         // Read object, ...
         objectStream.defaultReadObject();
 
-        // ... and validate the state.
-        validateState();
+        // ... and validate the state (subclass fields aren't read yet, so overridden validation cannot be used).
+        Objects.requireNonNull(contentType, "Content type is required");
     }
 
     protected void validateState() {
@@ -0,0 +1,429 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.event.TransportListener;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link MailSender} delivering the notifications asynchronously, using given delegate.
+ *
+ * <p>
+ * Notifications are queued in bounded queue, and delivered by the pool of workers. When the queue is full,
+ * {@link OverflowPolicy} determines what happens with next notification. Closing the sender stops accepting new
+ * notifications, and waits (for limited time) until queued ones are delivered.
+ * </p>
+ *
+ * <p>
+ * Notification rejected by {@link #accept(AddressedNotification, TransportListener...)} is reported by throwing the
+ * exception, while failed delivery of accepted notification is reported to the failure handler (by default, it is
+ * logged).
+ * </p>
+ *
+ * <p>
+ * Failure handler may be called by the caller thread (ex. if the notification is delivered using
+ * {@link OverflowPolicy#CALLER_RUNS} policy), so it shouldn't assume it runs on the worker thread.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class AsyncMailSender implements MailSender, AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(AsyncMailSender.class.getName());
+
+    private final MailSender delegate;
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final Duration drainTimeout;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder failed = new LongAdder();
+
+    private final Consumer<? super DeliveryOutcome> failureHandler;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder rejected = new LongAdder();
+
+    AsyncMailSender(final Builder builder) {
+        super();
+        delegate = builder.delegate;
+        drainTimeout = builder.drainTimeout;
+        failureHandler = builder.failureHandler;
+        overflowPolicy = builder.overflowPolicy;
+        executor = new ThreadPoolExecutor(builder.workers, builder.workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(builder.queueCapacity), builder.threadFactory, this::overflow);
+    }
+
+    /**
+     * Creates and returns the builder suitable for creating Async Mail Sender instances.
+     *
+     * @param delegate mail sender used for delivering the notifications
+     * @return newly created instance of the builder suitable for creating Async Mail Sender instances
+     */
+    public static Builder builder(@Nonnull final MailSender delegate) {
+
+        // Verify method requirements, ...
+        if (null == delegate) {
+            throw new IllegalArgumentException("Delegate is required.");
+        }
+
+        // ... and do the work.
+        return new Builder(delegate);
+    }
+
+    private static void reportFailure(final DeliveryOutcome outcome) {
+        outcome.getFailure()
+               .ifPresent(failure -> LOGGER.log(System.Logger.Level.WARNING,
+                   () -> String.format("Delivery of %s failed.", outcome.getNotification()), failure));
+    }
+
+    /**
+     * Accepts given notification for the delivery, without waiting for the delivery outcome.
+     *
+     * <p>
+     * Failed delivery is reported to the failure handler.
+     * </p>
+     *
+     * @param notification a notification to be delivered
+     * @param listeners    listeners watching the delivery process
+     * @throws NotificationException caused by {@link RejectedExecutionException}, if the notification is rejected
+     */
+    @Override
+    public void accept(final AddressedNotification notification, final TransportListener... listeners) {
+        final CompletableFuture<DeliveryOutcome> outcome = new CompletableFuture<>();
+        try {
+            submit(outcome, notification, listeners);
+        } catch (final RejectedExecutionException exception) {
+            throw new NotificationException(exception);
+        }
+        outcome.thenAccept(result -> {
+            if (!result.isDelivered()) {
+                failureHandler.accept(result);
+            }
+        });
+    }
+
+    /**
+     * Stops accepting new notifications, and waits until queued ones are delivered (up to the drain timeout).
+     */
+    @Override
+    public void close() {
+        shutdown(drainTimeout);
+    }
+
+    private DeliveryOutcome deliver(final AddressedNotification notification, final TransportListener... listeners) {
+        DeliveryOutcome result;
+        try {
+            delegate.accept(notification, listeners);
+            delivered.increment();
+            result = DeliveryOutcome.delivered(notification);
+        } catch (final RuntimeException exception) {
+            failed.increment();
+            result = DeliveryOutcome.failed(notification, exception);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of notifications being delivered at the moment
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return number of notifications delivered so far
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return number of notifications which failed to be delivered so far
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return number of notifications waiting in the queue
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return number of notifications, which can be queued without overflow
+     */
+    public int getRemainingCapacity() {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    /**
+     * @return number of notifications rejected so far
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void overflow(final Runnable task, final ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Mail sender is closed.");
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    executor.getQueue().put(task);
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(exception);
+                }
+
+                // Sender may have been closed while waiting, workers wouldn't take the task then.
+                if (executor.isShutdown() && executor.getQueue().remove(task)) {
+                    throw new RejectedExecutionException("Mail sender is closed.");
+                }
+                break;
+
+            case CALLER_RUNS:
+                task.run();
+                break;
+
+            default:
+                throw new RejectedExecutionException("Mail sender queue is full.");
+        }
+    }
+
+    /**
+     * Accepts given notification for the delivery.
+     *
+     * @param notification a notification to be delivered
+     * @param listeners    listeners watching the delivery process
+     * @return future completed with the delivery outcome, or completed exceptionally with
+     * {@link RejectedExecutionException} if the notification was rejected
+     */
+    @Nonnull
+    public CompletableFuture<DeliveryOutcome> send(@Nonnull final AddressedNotification notification,
+                                                   final TransportListener... listeners) {
+        final CompletableFuture<DeliveryOutcome> result = new CompletableFuture<>();
+        try {
+            submit(result, notification, listeners);
+        } catch (final RejectedExecutionException exception) {
+            result.completeExceptionally(exception);
+        }
+        return result;
+    }
+
+    private void submit(final CompletableFuture<DeliveryOutcome> outcome, final AddressedNotification notification,
+                        final TransportListener... listeners) throws RejectedExecutionException {
+        try {
+            executor.execute(() -> {
+                try {
+                    outcome.complete(deliver(notification, listeners));
+                } catch (final Throwable throwable) {
+                    failed.increment();
+                    outcome.completeExceptionally(throwable);
+                    throw throwable;
+                }
+            });
+        } catch (final RejectedExecutionException exception) {
+            rejected.increment();
+            throw exception;
+        }
+    }
+
+    /**
+     * Stops accepting new notifications, and waits until queued ones are delivered.
+     *
+     * @param timeout maximum time to wait
+     * @return {@code true} if all queued notifications were delivered, {@code false} if the timeout elapsed
+     */
+    public boolean shutdown(@Nonnull final Duration timeout) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Determines what happens with the notification, when the queue is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Caller waits until there is a room in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Notification is delivered synchronously, by the caller thread.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Notification is rejected.
+         */
+        REJECT
+
+    }
+
+    /**
+     * Builder suitable for creating Async Mail Sender instances.
+     */
+    public static final class Builder implements Supplier<AsyncMailSender> {
+
+        private final MailSender delegate;
+
+        private Duration drainTimeout = Duration.ofSeconds(30);
+
+        private Consumer<? super DeliveryOutcome> failureHandler = AsyncMailSender::reportFailure;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        private int queueCapacity = 1000;
+
+        private ThreadFactory threadFactory;
+
+        private int workers = 2;
+
+        Builder(final MailSender delegate) {
+            super();
+            this.delegate = delegate;
+            final AtomicInteger counter = new AtomicInteger();
+            threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable, "mail-sender-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        /**
+         * @param drainTimeout maximum time of waiting for delivery of queued notifications on close
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder drainTimeout(@Nonnull final Duration drainTimeout) {
+
+            // Verify method requirements, ...
+            if ((null == drainTimeout) || drainTimeout.isNegative()) {
+                throw new IllegalArgumentException("Non-negative drain timeout is required.");
+            }
+
+            // ... and do the work.
+            this.drainTimeout = drainTimeout;
+            return this;
+        }
+
+        /**
+         * @param failureHandler handler of failed deliveries of the notifications accepted by
+         *                       {@link AsyncMailSender#accept(AddressedNotification, TransportListener...)}
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder failureHandler(@Nonnull final Consumer<? super DeliveryOutcome> failureHandler) {
+
+            // Verify method requirements, ...
+            if (null == failureHandler) {
+                throw new IllegalArgumentException("Failure handler is required.");
+            }
+
+            // ... and do the work.
+            this.failureHandler = failureHandler;
+            return this;
+        }
+
+        /**
+         * @return newly created Async Mail Sender
+         */
+        @Override
+        public AsyncMailSender get() {
+            return new AsyncMailSender(this);
+        }
+
+        /**
+         * @param overflowPolicy policy applied when the queue is full
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder overflowPolicy(@Nonnull final OverflowPolicy overflowPolicy) {
+
+            // Verify method requirements, ...
+            if (null == overflowPolicy) {
+                throw new IllegalArgumentException("Overflow policy is required.");
+            }
+
+            // ... and do the work.
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity maximum number of queued notifications
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder queueCapacity(final int queueCapacity) {
+
+            // Verify method requirements, ...
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("Queue capacity should be positive.");
+            }
+
+            // ... and do the work.
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param threadFactory factory creating the worker threads (ex. virtual thread factory, if available)
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder threadFactory(@Nonnull final ThreadFactory threadFactory) {
+
+            // Verify method requirements, ...
+            if (null == threadFactory) {
+                throw new IllegalArgumentException("Thread factory is required.");
+            }
+
+            // ... and do the work.
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * @param workers number of workers delivering the notifications
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder workers(final int workers) {
+
+            // Verify method requirements, ...
+            if (workers <= 0) {
+                throw new IllegalArgumentException("Number of workers should be positive.");
+            }
+
+            // ... and do the work.
+            this.workers = workers;
+            return this;
+        }
+
+    }
+
+}
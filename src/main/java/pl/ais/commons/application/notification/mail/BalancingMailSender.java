@@ -0,0 +1,371 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.event.TransportListener;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * {@link MailSender} spreading the notifications across many mail relays.
+ *
+ * <p>
+ * Each relay is represented by the mail sender using it (ex. {@link DefaultMailSender} created for the relay
+ * session). Notification is sent using the relay having the lowest score, computed from exponentially weighted
+ * moving average of its send times, the number of sends in progress, and its weight. If the send fails because of
+ * transient failure (see {@link ResilientMailSender#isTransient(Throwable)}), it is repeated using the next relay.
+ * Relays failing repeatedly are ejected for some time (guarded by {@link CircuitBreaker}), and then probed again.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class BalancingMailSender implements MailSender {
+
+    private final List<Relay> relays;
+
+    private final Predicate<? super Throwable> retryOn;
+
+    BalancingMailSender(final Builder builder) {
+        super();
+        final double smoothing = builder.smoothing;
+        final List<Relay> created = new ArrayList<>(builder.relays.size());
+        builder.relays.forEach(definition -> created.add(new Relay(definition.name, definition.sender,
+            definition.weight, smoothing, new CircuitBreaker(builder.failureThreshold, builder.ejectionTime))));
+        relays = List.copyOf(created);
+        retryOn = builder.retryOn;
+    }
+
+    /**
+     * Creates and returns the builder suitable for creating Balancing Mail Sender instances.
+     *
+     * @return newly created instance of the builder suitable for creating Balancing Mail Sender instances
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NotificationException caused by {@link RejectedExecutionException}, if there is no available relay
+     */
+    @Override
+    public void accept(final AddressedNotification notification, final TransportListener... listeners) {
+        RuntimeException failure = null;
+        for (final Relay relay : ranked()) {
+            if (relay.circuitBreaker.tryAcquire()) {
+                relay.inFlight.incrementAndGet();
+                final long start = System.nanoTime();
+                boolean recorded = false;
+                try {
+                    relay.sender.accept(notification, listeners);
+                    recorded = true;
+                    relay.onSuccess(System.nanoTime() - start);
+                    return;
+                } catch (final RuntimeException exception) {
+                    if (!retryOn.test(exception)) {
+                        if (ResilientMailSender.isRelayReply(exception)) {
+
+                            // Relay responded, only the notification cannot be delivered.
+                            recorded = true;
+                            relay.onSuccess(System.nanoTime() - start);
+                        } else if (ResilientMailSender.isIoFailure(exception)) {
+
+                            // Message may have been accepted already, so it isn't sent again, but the relay is failing.
+                            recorded = true;
+                            relay.circuitBreaker.onFailure();
+                        }
+
+                        // Other failures (ex. invalid input) say nothing about the relay, the permit is released only.
+                        throw exception;
+                    }
+                    recorded = true;
+                    relay.circuitBreaker.onFailure();
+                    if ((null != failure) && (failure != exception)) {
+                        exception.addSuppressed(failure);
+                    }
+                    failure = exception;
+                } finally {
+
+                    // Send ended without recorded outcome (ex. because of an error), so the permit is released.
+                    if (!recorded) {
+                        relay.circuitBreaker.release();
+                    }
+                    relay.inFlight.decrementAndGet();
+                }
+            }
+        }
+        throw (null == failure) ? new NotificationException(new RejectedExecutionException("No relay is available."))
+            : failure;
+    }
+
+    /**
+     * @return the relays, in the order of definition
+     */
+    @Nonnull
+    public List<Relay> getRelays() {
+        return relays;
+    }
+
+    private List<Relay> ranked() {
+
+        // Scores change concurrently, so they are captured before sorting.
+        final double[] scores = new double[relays.size()];
+        final List<Integer> order = new ArrayList<>(relays.size());
+        for (int index = 0; index < scores.length; index++) {
+            scores[index] = relays.get(index).score();
+            order.add(index);
+        }
+        order.sort(Comparator.comparingDouble(index -> scores[index]));
+
+        final List<Relay> result = new ArrayList<>(relays.size());
+        order.forEach(index -> result.add(relays.get(index)));
+        return result;
+    }
+
+    /**
+     * Mail relay used by the sender.
+     */
+    @ThreadSafe
+    public static final class Relay {
+
+        private final CircuitBreaker circuitBreaker;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile double latency;
+
+        private final String name;
+
+        private final MailSender sender;
+
+        private final double smoothing;
+
+        private final int weight;
+
+        Relay(final String name, final MailSender sender, final int weight, final double smoothing,
+              final CircuitBreaker circuitBreaker) {
+            this.name = name;
+            this.sender = sender;
+            this.weight = weight;
+            this.smoothing = smoothing;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        /**
+         * @return moving average of the send times
+         */
+        @Nonnull
+        public Duration getAverageLatency() {
+            return Duration.ofNanos((long) latency);
+        }
+
+        /**
+         * @return circuit breaker guarding the relay
+         */
+        @Nonnull
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        /**
+         * @return number of sends in progress
+         */
+        public int getInFlightCount() {
+            return inFlight.get();
+        }
+
+        /**
+         * @return name of the relay
+         */
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return weight of the relay
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        void onSuccess(final long duration) {
+            circuitBreaker.onSuccess();
+            synchronized (this) {
+                latency += smoothing * (duration - latency);
+            }
+        }
+
+        double score() {
+
+            // Relays which weren't used yet have zero latency, so they will be tried first.
+            return (latency + 1) * (inFlight.get() + 1) / weight;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Relay %s (weight: %d, average latency: %s, in flight: %d, %s)", name, weight,
+                getAverageLatency(), inFlight.get(), circuitBreaker.getState());
+        }
+
+    }
+
+    /**
+     * Builder suitable for creating Balancing Mail Sender instances.
+     */
+    public static final class Builder implements Supplier<BalancingMailSender> {
+
+        private Duration ejectionTime = Duration.ofSeconds(30);
+
+        private int failureThreshold = 3;
+
+        private final List<RelayDefinition> relays = new ArrayList<>();
+
+        private Predicate<? super Throwable> retryOn = ResilientMailSender::isTransient;
+
+        private double smoothing = 0.2;
+
+        Builder() {
+            super();
+        }
+
+        /**
+         * @param failureThreshold number of consecutive transient failures ejecting the relay
+         * @param ejectionTime     time after which ejected relay is probed again
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder ejection(final int failureThreshold, @Nonnull final Duration ejectionTime) {
+
+            // Verify method requirements, ...
+            if (failureThreshold <= 0) {
+                throw new IllegalArgumentException("Failure threshold should be positive.");
+            }
+            if ((null == ejectionTime) || ejectionTime.isNegative()) {
+                throw new IllegalArgumentException("Non-negative ejection time is required.");
+            }
+
+            // ... and do the work.
+            this.failureThreshold = failureThreshold;
+            this.ejectionTime = ejectionTime;
+            return this;
+        }
+
+        /**
+         * @return newly created Balancing Mail Sender
+         */
+        @Override
+        public BalancingMailSender get() {
+            if (relays.isEmpty()) {
+                throw new IllegalStateException("At least one relay is required.");
+            }
+            return new BalancingMailSender(this);
+        }
+
+        /**
+         * Adds the relay having default weight (1).
+         *
+         * @param name   name of the relay
+         * @param sender mail sender using the relay
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder relay(@Nonnull final String name, @Nonnull final MailSender sender) {
+            return relay(name, sender, 1);
+        }
+
+        /**
+         * Adds the relay.
+         *
+         * @param name   name of the relay
+         * @param sender mail sender using the relay
+         * @param weight weight of the relay (relay having greater weight gets more notifications)
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder relay(@Nonnull final String name, @Nonnull final MailSender sender, final int weight) {
+
+            // Verify method requirements, ...
+            if (null == name) {
+                throw new IllegalArgumentException("Relay name is required.");
+            }
+            if (null == sender) {
+                throw new IllegalArgumentException("Mail sender is required.");
+            }
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight should be positive.");
+            }
+
+            // ... and do the work.
+            relays.add(new RelayDefinition(name, sender, weight));
+            return this;
+        }
+
+        /**
+         * @param retryOn predicate determining if the delivery failure is transient, and the delivery should be
+         *                repeated using another relay (defaults to {@link ResilientMailSender#isTransient(Throwable)})
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder retryOn(@Nonnull final Predicate<? super Throwable> retryOn) {
+
+            // Verify method requirements, ...
+            if (null == retryOn) {
+                throw new IllegalArgumentException("Retry predicate is required.");
+            }
+
+            // ... and do the work.
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        /**
+         * @param smoothing weight of the latest send time in the moving average of the send times (from 0 to 1)
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder smoothing(final double smoothing) {
+
+            // Verify method requirements, ...
+            if ((smoothing <= 0) || (smoothing > 1)) {
+                throw new IllegalArgumentException("Smoothing should be greater than 0, and not greater than 1.");
+            }
+
+            // ... and do the work.
+            this.smoothing = smoothing;
+            return this;
+        }
+
+    }
+
+    /**
+     * Definition of the relay.
+     */
+    private static final class RelayDefinition {
+
+        private final String name;
+
+        private final MailSender sender;
+
+        private final int weight;
+
+        RelayDefinition(final String name, final MailSender sender, final int weight) {
+            this.name = name;
+            this.sender = sender;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+package pl.ais.commons.application.notification.mail;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker guarding the access to single mail relay.
+ *
+ * <p>
+ * Breaker opens after given number of consecutive failures, and rejects the calls until the open timeout elapses.
+ * Then single probing call is permitted (breaker is half-open): if it succeeds, breaker closes again, otherwise
+ * it opens for another timeout. Call ending without recorded outcome (ex. because of an error) should
+ * {@link #release() release} the permit, so another probing call is permitted.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class CircuitBreaker {
+
+    private final LongSupplier clock;
+
+    private int failures;
+
+    private final int failureThreshold;
+
+    private long openedAt;
+
+    private final long openTimeout;
+
+    private State state = State.CLOSED;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param failureThreshold number of consecutive failures opening the breaker
+     * @param openTimeout      time after which open breaker permits probing call
+     */
+    public CircuitBreaker(final int failureThreshold, @Nonnull final Duration openTimeout) {
+        this(failureThreshold, openTimeout, System::nanoTime);
+    }
+
+    CircuitBreaker(final int failureThreshold, final Duration openTimeout, final LongSupplier clock) {
+        super();
+
+        // Verify constructor requirements, ...
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold should be positive.");
+        }
+        if ((null == openTimeout) || openTimeout.isNegative()) {
+            throw new IllegalArgumentException("Non-negative open timeout is required.");
+        }
+
+        // ... and initialize this instance fields.
+        this.failureThreshold = failureThreshold;
+        this.openTimeout = openTimeout.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * @return current state of the breaker
+     */
+    @Nonnull
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Records failed call.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if ((State.HALF_OPEN == state) || (failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Records successful call.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Releases the permit of the call, which ended without recorded outcome.
+     */
+    public synchronized void release() {
+        if (State.HALF_OPEN == state) {
+
+            // Probing call didn't prove anything, so the next call may probe immediately.
+            state = State.OPEN;
+            openedAt = clock.getAsLong() - openTimeout;
+        }
+    }
+
+    /**
+     * Verifies if the call is permitted.
+     *
+     * @return {@code true} if the call is permitted, {@code false} if it should be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        boolean result = (State.CLOSED == state);
+        if ((State.OPEN == state) && (clock.getAsLong() - openedAt >= openTimeout)) {
+            state = State.HALF_OPEN;
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * State of the breaker.
+     */
+    public enum State {
+
+        /**
+         * Calls are permitted.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+
+        /**
+         * Probing call is in progress, other calls are rejected.
+         */
+        HALF_OPEN
+
+    }
+
+}
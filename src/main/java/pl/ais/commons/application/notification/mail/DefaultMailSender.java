@@ -2,41 +2,91 @@ package pl.ais.commons.application.notification.mail;
 
 import pl.ais.commons.application.notification.AddressType;
 import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.Notification;
 import pl.ais.commons.application.notification.NotificationException;
+import pl.ais.commons.application.notification.component.NotificationComponentVisitor;
 import pl.ais.commons.application.notification.component.Subject;
 
 import jakarta.mail.Address;
 import jakarta.mail.Message.RecipientType;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
 import jakarta.mail.Session;
 import jakarta.mail.Transport;
 import jakarta.mail.event.TransportListener;
 import jakarta.mail.internet.AddressException;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
-import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
 
 /**
  * Default {@link MailSender} implementation.
  *
+ * <p>
+ * Sender created for the {@link Session} opens new connection for each notification, sender created for
+ * the {@link TransportPool} reuses pooled connections. Batch of notifications (see {@link #acceptAll(Collection,
+ * TransportListener...)}) is sent using single connection.
+ * </p>
+ *
  * @author Warlock, AIS.PL
  * @since 1.2.1
  */
 public final class DefaultMailSender implements MailSender {
 
+    /**
+     * Parser of the recipients addresses, parsed addresses are cached by the notification for this parser instance.
+     */
+    private static final Function<String[], Address[]> ADDRESS_PARSER = DefaultMailSender::parseAddresses;
+
+    private final TransportPool pool;
+
     private final Session session;
 
     public DefaultMailSender(final Session session) {
         this.session = session;
+        pool = null;
+    }
+
+    /**
+     * Constructs new instance, sending the notifications using pooled connections.
+     *
+     * @param pool pool of the connections
+     * @since 1.3.4
+     */
+    public DefaultMailSender(final TransportPool pool) {
+
+        // Verify constructor requirements, ...
+        if (null == pool) {
+            throw new IllegalArgumentException("Transport pool is required.");
+        }
+
+        // ... and initialize this instance fields.
+        this.pool = pool;
+        session = pool.getSession();
     }
 
-    private static RecipientType mapType(final AddressType type) {
+    private static void closeQuietly(final Transport transport) {
+        if (null != transport) {
+            try {
+                transport.close();
+            } catch (final MessagingException exception) {
+                // Connection is not used anymore, nothing more can be done.
+            }
+        }
+    }
+
+    static RecipientType mapType(final AddressType type) {
         final RecipientType result;
         switch (type) {
             case BCC:
@@ -56,59 +106,199 @@ public final class DefaultMailSender implements MailSender {
 
     @Override
     public void accept(final AddressedNotification notification, final TransportListener... listeners) {
+        final MimeMessage message = createMessage(notification);
+        try {
+            if (null == pool) {
+                final Transport transport = connect(listeners);
+                try {
+                    transport.sendMessage(message, message.getAllRecipients());
+                } finally {
+                    transport.close();
+                }
+            } else {
+                pool.send(message, listeners);
+            }
+        } catch (final MessagingException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DeliveryOutcome> acceptAll(final Collection<AddressedNotification> notifications,
+                                           final TransportListener... listeners) {
+        return sendAll(notifications, this::createMessage, listeners);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Message content (together with the headers showing all the primary and CC recipients of the notification) is
+     * created and encoded once, and shared by the messages sent to each chunk of the recipients. Notification is
+     * split into the envelope recipients only, and BCC recipients aren't shown by any message.
+     * </p>
+     */
+    @Override
+    public DeliveryReport acceptChunked(final AddressedNotification notification, final int maximumRecipients,
+                                        final Executor executor, final TransportListener... listeners) {
+        final List<AddressedNotification> chunks = notification.split(maximumRecipients);
+        if (1 == chunks.size()) {
+            return DeliveryReport.of(acceptAll(chunks, listeners));
+        }
+        final RenderedMessage rendered =
+            render(notification.getSender(), notification.getSubject(), notification::apply,
+                Map.of(RecipientType.TO, notification.getRecipients(AddressType.PRIMARY, ADDRESS_PARSER),
+                    RecipientType.CC, notification.getRecipients(AddressType.CC, ADDRESS_PARSER)));
+        final List<CompletableFuture<DeliveryOutcome>> outcomes =
+            chunks.stream()
+                  .map(chunk -> CompletableFuture.supplyAsync(() -> sendAll(List.of(chunk),
+                      addressed -> rendered.newMessage(), listeners).get(0), executor))
+                  .collect(toList());
+        return DeliveryReport.of(outcomes.stream().map(CompletableFuture::join).collect(toList()));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Message content is created and encoded once, messages sent to each recipient differ in {@code To},
+     * {@code Message-ID} and {@code Date} headers only.
+     * </p>
+     */
+    @Override
+    public List<DeliveryOutcome> acceptFanOut(final Notification notification, final Collection<String> recipients,
+                                              final TransportListener... listeners) {
+        final RenderedMessage rendered =
+            render(notification.getSender(), notification.getSubject(), notification::apply, Map.of());
+        final List<AddressedNotification> notifications =
+            recipients.stream()
+                      .map(recipient -> notification.addressed().to(recipient).get())
+                      .collect(toList());
+        return sendAll(notifications,
+            addressed -> rendered.newMessage(addressed, ADDRESS_PARSER),
+            listeners);
+    }
 
+    private Transport connect(final TransportListener... listeners) throws MessagingException {
+        final Transport transport = session.getTransport();
+        Arrays.stream(listeners)
+              .forEachOrdered(transport::addTransportListener);
+        transport.connect();
+        return transport;
+    }
+
+    private static Address[] envelopeOf(final AddressedNotification notification) {
+        final List<Address> result = new ArrayList<>();
+        for (final AddressType addressType : AddressType.values()) {
+            result.addAll(Arrays.asList(notification.getRecipients(addressType, ADDRESS_PARSER)));
+        }
+        return result.toArray(new Address[0]);
+    }
+
+    private MimeMessage createMessage(final AddressedNotification notification) {
         final MimeMessage message = new MimeMessage(session);
         try {
             message.setSentDate(new Date());
+            setSender(message, notification.getSender());
 
-            final String sender = notification.getSender();
-            if ((null == sender) || sender.isEmpty()) {
-                message.setFrom();
-            } else {
-                final InternetAddress senderAddress = new InternetAddress(sender);
-                message.setFrom(senderAddress);
-                message.setReplyTo(new Address[] {senderAddress});
+            for (final AddressType addressType : AddressType.values()) {
+                message.setRecipients(mapType(addressType), notification.getRecipients(addressType, ADDRESS_PARSER));
             }
 
-            EnumSet.allOf(AddressType.class)
-                   .forEach(addressType -> {
-                       final List<Address> addresses = notification.getRecipients(addressType)
-                                                                   .flatMap(this::parseAddress)
-                                                                   .collect(toList());
-                       try {
-                           message.setRecipients(mapType(addressType), addresses.toArray(new Address[addresses.size()]));
-                       } catch (final MessagingException exception) {
-                           throw new NotificationException(exception);
-                       }
-                   });
-
             final Subject subject = notification.getSubject();
             message.setSubject(subject.toString(), subject.getCharsetName());
 
             notification.apply(new MimePartCreator(message));
 
             message.saveChanges();
+            return message;
+        } catch (final MessagingException exception) {
+            throw new NotificationException(exception);
+        }
+    }
 
-            final Transport transport = session.getTransport();
-            Arrays.stream(listeners)
-                  .forEachOrdered(transport::addTransportListener);
-            try {
-                transport.connect();
-                transport.sendMessage(message, message.getAllRecipients());
-            } finally {
-                transport.close();
+    private static Address[] parseAddresses(final String[] recipients) {
+        final List<Address> result = new ArrayList<>(recipients.length);
+        try {
+            for (final String recipient : recipients) {
+                result.addAll(Arrays.asList(InternetAddress.parse(recipient)));
+            }
+        } catch (final AddressException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+        return result.toArray(new Address[0]);
+    }
+
+    private RenderedMessage render(final String sender, final Subject subject,
+                                   final Consumer<NotificationComponentVisitor> content,
+                                   final Map<RecipientType, Address[]> recipients) {
+        final MimeMessage prototype = new MimeMessage(session);
+        try {
+            setSender(prototype, sender);
+            for (final Map.Entry<RecipientType, Address[]> entry : recipients.entrySet()) {
+                prototype.setRecipients(entry.getKey(), entry.getValue());
             }
+            prototype.setSubject(subject.toString(), subject.getCharsetName());
+            content.accept(new MimePartCreator(prototype));
 
+            prototype.saveChanges();
+            return RenderedMessage.of(prototype);
         } catch (final MessagingException exception) {
             throw new NotificationException(exception);
         }
     }
 
-    private Stream<Address> parseAddress(final String recipient) {
+    private List<DeliveryOutcome> sendAll(final Collection<AddressedNotification> notifications,
+                                          final Function<AddressedNotification, MimeMessage> messageFactory,
+                                          final TransportListener... listeners) {
+        final List<DeliveryOutcome> result = new ArrayList<>(notifications.size());
+        Transport transport = null;
         try {
-            return Arrays.stream(InternetAddress.parse(recipient));
-        } catch (final AddressException exception) {
-            throw new IllegalArgumentException(exception);
+            for (final AddressedNotification notification : notifications) {
+                try {
+                    final MimeMessage message = messageFactory.apply(notification);
+
+                    // Message may show more recipients than the notification (ex. chunk of bigger one) is sent to.
+                    final Address[] envelope = envelopeOf(notification);
+                    if (null != pool) {
+                        pool.send(message, envelope, listeners);
+                    } else {
+                        if (null == transport) {
+                            transport = connect(listeners);
+                        }
+                        try {
+                            transport.sendMessage(message, envelope);
+                        } catch (final SendFailedException exception) {
+                            throw exception;
+                        } catch (final MessagingException exception) {
+
+                            // Connection seems to be broken, next notification will use new one.
+                            closeQuietly(transport);
+                            transport = null;
+                            throw exception;
+                        }
+                    }
+                    result.add(DeliveryOutcome.delivered(notification));
+                } catch (final MessagingException | RuntimeException exception) {
+                    result.add(DeliveryOutcome.failed(notification, exception));
+                }
+            }
+        } finally {
+            closeQuietly(transport);
+        }
+        return result;
+    }
+
+    private void setSender(final MimeMessage message, final String sender) throws MessagingException {
+        if ((null == sender) || sender.isEmpty()) {
+            message.setFrom();
+        } else {
+            final InternetAddress senderAddress = new InternetAddress(sender);
+            message.setFrom(senderAddress);
+            message.setReplyTo(new Address[] {senderAddress});
         }
     }
 
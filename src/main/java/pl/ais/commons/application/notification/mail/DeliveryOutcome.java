@@ -0,0 +1,98 @@
+package pl.ais.commons.application.notification.mail;
+
+import pl.ais.commons.application.notification.AddressedNotification;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Optional;
+
+/**
+ * Outcome of the notification delivery.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class DeliveryOutcome {
+
+    private final Exception failure;
+
+    private final AddressedNotification notification;
+
+    private DeliveryOutcome(final AddressedNotification notification, final Exception failure) {
+        super();
+        this.notification = notification;
+        this.failure = failure;
+    }
+
+    /**
+     * @param notification delivered notification
+     * @return outcome of successful delivery of given notification
+     */
+    @Nonnull
+    public static DeliveryOutcome delivered(@Nonnull final AddressedNotification notification) {
+
+        // Verify method requirements, ...
+        if (null == notification) {
+            throw new IllegalArgumentException("Notification is required.");
+        }
+
+        // ... and do the work.
+        return new DeliveryOutcome(notification, null);
+    }
+
+    /**
+     * @param notification notification which wasn't delivered
+     * @param failure      the reason of the failure
+     * @return outcome of failed delivery of given notification
+     */
+    @Nonnull
+    public static DeliveryOutcome failed(@Nonnull final AddressedNotification notification,
+                                         @Nonnull final Exception failure) {
+
+        // Verify method requirements, ...
+        if (null == notification) {
+            throw new IllegalArgumentException("Notification is required.");
+        }
+        if (null == failure) {
+            throw new IllegalArgumentException("Failure is required.");
+        }
+
+        // ... and do the work.
+        return new DeliveryOutcome(notification, failure);
+    }
+
+    /**
+     * @return the reason of the failure, if the delivery failed
+     */
+    @Nonnull
+    public Optional<Exception> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * @return the notification
+     */
+    @Nonnull
+    public AddressedNotification getNotification() {
+        return notification;
+    }
+
+    /**
+     * @return {@code true} if the notification was delivered, {@code false} otherwise
+     */
+    public boolean isDelivered() {
+        return null == failure;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return isDelivered() ? String.format("Delivered: %s", notification)
+            : String.format("Not delivered: %s (%s)", notification, failure);
+    }
+
+}
@@ -0,0 +1,82 @@
+package pl.ais.commons.application.notification.mail;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Report of the notification delivery, aggregating the outcomes of delivering its parts (ex. recipient chunks).
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class DeliveryReport {
+
+    private final List<DeliveryOutcome> outcomes;
+
+    private DeliveryReport(final List<DeliveryOutcome> outcomes) {
+        super();
+        this.outcomes = outcomes;
+    }
+
+    /**
+     * @param outcomes outcomes of delivering the notification parts
+     * @return report aggregating given outcomes
+     */
+    @Nonnull
+    public static DeliveryReport of(@Nonnull final List<DeliveryOutcome> outcomes) {
+
+        // Verify method requirements, ...
+        if (null == outcomes) {
+            throw new IllegalArgumentException("Outcomes are required.");
+        }
+
+        // ... and do the work.
+        return new DeliveryReport(List.copyOf(outcomes));
+    }
+
+    /**
+     * @return number of delivered parts
+     */
+    public int getDeliveredCount() {
+        return outcomes.size() - getFailures().size();
+    }
+
+    /**
+     * @return outcomes of the parts, which failed to be delivered
+     */
+    @Nonnull
+    public List<DeliveryOutcome> getFailures() {
+        return outcomes.stream()
+                       .filter(outcome -> !outcome.isDelivered())
+                       .collect(toList());
+    }
+
+    /**
+     * @return outcomes of delivering the notification parts
+     */
+    @Nonnull
+    public List<DeliveryOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return {@code true} if all the parts were delivered, {@code false} otherwise
+     */
+    public boolean isDelivered() {
+        return outcomes.stream().allMatch(DeliveryOutcome::isDelivered);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("Delivered %d of %d parts", getDeliveredCount(), outcomes.size());
+    }
+
+}
@@ -2,9 +2,17 @@ package pl.ais.commons.application.notification.mail;
 
 import jakarta.mail.event.TransportListener;
 import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.Notification;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * Defines the API contract for Mail Sender.
  *
@@ -22,4 +30,77 @@ public interface MailSender extends BiConsumer<AddressedNotification, TransportL
     @Override
     void accept(AddressedNotification notification, TransportListener... listeners);
 
+    /**
+     * Accepts given notifications for the delivery.
+     *
+     * <p>
+     * Failure of single notification delivery doesn't stop the delivery of remaining ones, outcome of each delivery
+     * is reported instead.
+     * </p>
+     *
+     * @param notifications notifications to be delivered
+     * @param listeners     listeners watching the delivery process
+     * @return outcomes of the delivery, in the order of given notifications
+     * @since 1.3.4
+     */
+    default List<DeliveryOutcome> acceptAll(final Collection<AddressedNotification> notifications,
+                                            final TransportListener... listeners) {
+        final List<DeliveryOutcome> result = new ArrayList<>(notifications.size());
+        for (final AddressedNotification notification : notifications) {
+            try {
+                accept(notification, listeners);
+                result.add(DeliveryOutcome.delivered(notification));
+            } catch (final RuntimeException exception) {
+                result.add(DeliveryOutcome.failed(notification, exception));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Accepts given notification for the delivery, split into the notifications having limited number of
+     * the recipients (see {@link AddressedNotification#split(int)}), which are delivered in parallel.
+     *
+     * <p>
+     * Each part shows its own primary and CC recipients only. Implementations able to split the envelope recipients
+     * only (ex. {@link DefaultMailSender}) should show all of them in each message.
+     * </p>
+     *
+     * @param notification      a notification to be delivered
+     * @param maximumRecipients maximum number of the recipients of single message
+     * @param executor          executor used for delivering the parts of the notification
+     * @param listeners         listeners watching the delivery process
+     * @return report aggregating the outcomes of delivering the parts of the notification
+     * @since 1.3.4
+     */
+    default DeliveryReport acceptChunked(final AddressedNotification notification, final int maximumRecipients,
+                                         final Executor executor, final TransportListener... listeners) {
+        final List<CompletableFuture<DeliveryOutcome>> outcomes = notification.split(maximumRecipients).stream()
+            .map(chunk -> CompletableFuture.supplyAsync(() -> acceptAll(List.of(chunk), listeners).get(0), executor))
+            .collect(toList());
+        return DeliveryReport.of(outcomes.stream().map(CompletableFuture::join).collect(toList()));
+    }
+
+    /**
+     * Accepts given notification for the delivery to each of given recipients separately.
+     *
+     * <p>
+     * Failure of delivery to single recipient doesn't stop the delivery to remaining ones, outcome of each delivery
+     * is reported instead. Implementations are encouraged to prepare the message content once for all
+     * the recipients.
+     * </p>
+     *
+     * @param notification a notification to be delivered
+     * @param recipients   recipients of the notification
+     * @param listeners    listeners watching the delivery process
+     * @return outcomes of the delivery, in the order of given recipients
+     * @since 1.3.4
+     */
+    default List<DeliveryOutcome> acceptFanOut(final Notification notification, final Collection<String> recipients,
+                                               final TransportListener... listeners) {
+        return acceptAll(recipients.stream()
+                                   .map(recipient -> notification.addressed().to(recipient).get())
+                                   .collect(toList()), listeners);
+    }
+
 }
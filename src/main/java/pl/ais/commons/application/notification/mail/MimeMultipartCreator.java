@@ -25,10 +25,13 @@ class MimeMultipartCreator implements NotificationComponentVisitor {
         container = multipart;
     }
 
-    private void processDataSource(final DataSource dataSource) {
+    private void processDataSource(final DataSource dataSource, final String encoding) {
         final MimeBodyPart bodyPart = new MimeBodyPart();
         try {
             bodyPart.setDataHandler(new DataHandler(dataSource));
+            if (null != encoding) {
+                bodyPart.setHeader("Content-Transfer-Encoding", encoding);
+            }
             container.addBodyPart(bodyPart);
         } catch (final MessagingException exception) {
             throw new NotificationException(exception);
@@ -40,7 +43,9 @@ class MimeMultipartCreator implements NotificationComponentVisitor {
      */
     @Override
     public void visit(final Attachment attachment) {
-        processDataSource(attachment);
+
+        // Choosing the encoding upfront spares reading the whole attachment content just to determine it.
+        processDataSource(attachment, "base64");
     }
 
     /**
@@ -70,7 +75,7 @@ class MimeMultipartCreator implements NotificationComponentVisitor {
      */
     @Override
     public void visit(final Text text) {
-        processDataSource(text);
+        processDataSource(text, null);
     }
 
 }
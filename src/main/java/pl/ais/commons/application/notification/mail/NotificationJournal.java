@@ -0,0 +1,527 @@
+package pl.ais.commons.application.notification.mail;
+
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the notifications accepted for the delivery.
+ *
+ * <p>
+ * Journal is kept as a sequence of fixed size, memory mapped segment files. Each entry holds serialized
+ * notification, its checksum, and the delivery flag, set in place when the notification is delivered (or its
+ * delivery fails permanently). Entries are forced to the disk in batches (see {@link Builder#syncEvery(int)}),
+ * segments holding no pending entries are unmapped and removed. When the journal is opened, segments are scanned,
+ * entries damaged by the crash are ignored, and pending ones can be {@link #replay(ObjLongConsumer) replayed}.
+ * </p>
+ *
+ * <p>
+ * Delivery flags are not forced to the disk, so the notification delivered just before the crash may be delivered
+ * again after replay.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class NotificationJournal implements AutoCloseable {
+
+    private static final byte DELIVERED = 1;
+
+    private static final byte FAILED = 2;
+
+    private static final int HEADER_SIZE = 9;
+
+    private static final byte PENDING = 0;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final MethodHandle UNMAPPER = unmapper();
+
+    private Segment active;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final Map<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final int syncEvery;
+
+    private int unsynced;
+
+    NotificationJournal(final Builder builder) throws IOException {
+        super();
+        directory = builder.directory;
+        segmentSize = builder.segmentSize;
+        syncEvery = builder.syncEvery;
+
+        // Open existing segments, dropping the ones holding delivered entries only, ...
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+            SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                final int number = Integer.parseInt(
+                    name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(number, new Segment(number, path, segmentSize));
+            }
+        }
+        for (final Segment segment : segments.values()) {
+            active = segment;
+        }
+        for (final Segment segment : segments.values()) {
+            if ((segment != active) && (0 == segment.pending.get())) {
+                remove(segment);
+            }
+        }
+
+        // ... and start new segment, if there is no segment to continue with.
+        if (null == active) {
+            roll();
+        }
+    }
+
+    /**
+     * Creates and returns the builder suitable for creating Notification Journal instances.
+     *
+     * @param directory directory holding the journal segments
+     * @return newly created instance of the builder suitable for creating Notification Journal instances
+     */
+    public static Builder builder(@Nonnull final Path directory) {
+
+        // Verify method requirements, ...
+        if (null == directory) {
+            throw new IllegalArgumentException("Directory is required.");
+        }
+
+        // ... and do the work.
+        return new Builder(directory);
+    }
+
+    private static int checksum(final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static AddressedNotification deserialize(final byte[] payload) throws IOException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (AddressedNotification) input.readObject();
+        } catch (final ClassNotFoundException exception) {
+            throw new IOException(exception);
+        }
+    }
+
+    private static byte[] serialize(final AddressedNotification notification) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(notification);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Appends given notification to the journal.
+     *
+     * @param notification the notification
+     * @return identifier of the journal entry
+     * @throws NotificationException if the notification cannot be appended
+     */
+    public long append(@Nonnull final AddressedNotification notification) {
+
+        // Verify method requirements, ...
+        if (null == notification) {
+            throw new IllegalArgumentException("Notification is required.");
+        }
+
+        // ... serialize the notification, ...
+        final byte[] payload;
+        try {
+            payload = serialize(notification);
+        } catch (final IOException exception) {
+            throw new NotificationException(exception);
+        }
+        if (payload.length > segmentSize - 2 * HEADER_SIZE) {
+            throw new IllegalArgumentException("Notification is too large for the journal segment.");
+        }
+
+        // ... and append it to the active segment.
+        synchronized (this) {
+            if (null == active) {
+                throw new IllegalStateException("Journal is closed.");
+            }
+            if (!active.hasRoomFor(payload)) {
+                roll();
+            }
+            final long result = active.append(payload);
+            if (++unsynced >= syncEvery) {
+                active.buffer.force();
+                unsynced = 0;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Closes the journal, forcing appended entries to the disk.
+     */
+    @Override
+    public synchronized void close() {
+        if (null != active) {
+            active.buffer.force();
+            active = null;
+            for (final Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * @return number of entries waiting for the delivery
+     */
+    public int getPendingCount() {
+        return segments.values().stream().mapToInt(segment -> segment.pending.get()).sum();
+    }
+
+    /**
+     * @return number of journal segments
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Marks given journal entry as delivered.
+     *
+     * @param entry identifier of the journal entry
+     */
+    public void markDelivered(final long entry) {
+        conclude(entry, DELIVERED);
+    }
+
+    /**
+     * Marks given journal entry as failed permanently, so it isn't replayed anymore.
+     *
+     * @param entry identifier of the journal entry
+     */
+    public void markFailed(final long entry) {
+        conclude(entry, FAILED);
+    }
+
+    private void conclude(final long entry, final byte state) {
+        final Segment segment = segments.get((int) (entry >>> 32));
+        if ((null != segment) && segment.conclude((int) entry, state)) {
+            synchronized (this) {
+                if ((segment != active) && (0 == segment.pending.get()) && segments.containsKey(segment.number)) {
+                    remove(segment);
+                }
+            }
+        }
+    }
+
+    private void remove(final Segment segment) {
+        segments.remove(segment.number);
+        segment.close();
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (final IOException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    /**
+     * Passes each entry waiting for the delivery (along with its identifier) to given consumer.
+     *
+     * <p>
+     * Entries are read segment by segment, while holding the segment, and passed to the consumer afterwards, so the
+     * consumer may use the journal. Entries appended while replaying may be omitted.
+     * </p>
+     *
+     * @param consumer the consumer
+     * @throws NotificationException if some entry cannot be read
+     */
+    public void replay(@Nonnull final ObjLongConsumer<AddressedNotification> consumer) {
+        for (final Segment segment : segments.values()) {
+            final Map<Integer, byte[]> pending = new LinkedHashMap<>();
+            segment.forEachPending(pending::put);
+            for (final Map.Entry<Integer, byte[]> entry : pending.entrySet()) {
+                try {
+                    consumer.accept(deserialize(entry.getValue()), ((long) segment.number << 32) | entry.getKey());
+                } catch (final IOException exception) {
+                    throw new NotificationException(exception);
+                }
+            }
+        }
+    }
+
+    private void roll() {
+        try {
+            if (null != active) {
+                active.buffer.force();
+                unsynced = 0;
+                if (0 == active.pending.get()) {
+                    remove(active);
+                }
+            }
+            final int number = (null == active) ? 0 : active.number + 1;
+            final Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+            active = new Segment(number, path, segmentSize);
+            segments.put(number, active);
+        } catch (final IOException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    private static MethodHandle unmapper() {
+        MethodHandle result = null;
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            result = MethodHandles.lookup()
+                                  .findVirtual(unsafeClass, "invokeCleaner",
+                                      MethodType.methodType(void.class, ByteBuffer.class))
+                                  .bindTo(field.get(null));
+        } catch (final ReflectiveOperationException | RuntimeException exception) {
+            // Unmapping isn't supported, segments will be unmapped when garbage collected.
+        }
+        return result;
+    }
+
+    private static void unmap(final MappedByteBuffer buffer) {
+        if (null != UNMAPPER) {
+            try {
+                UNMAPPER.invokeExact((ByteBuffer) buffer);
+            } catch (final RuntimeException | Error exception) {
+                throw exception;
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+        }
+    }
+
+    /**
+     * Forces appended entries to the disk.
+     */
+    public synchronized void sync() {
+        if (null != active) {
+            active.buffer.force();
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * Builder suitable for creating Notification Journal instances.
+     */
+    public static final class Builder implements Supplier<NotificationJournal> {
+
+        private final Path directory;
+
+        private int segmentSize = 16 * 1024 * 1024;
+
+        private int syncEvery = 64;
+
+        Builder(final Path directory) {
+            super();
+            this.directory = directory;
+        }
+
+        /**
+         * Opens the journal.
+         *
+         * @return newly opened Notification Journal
+         * @throws NotificationException if the journal cannot be opened
+         */
+        @Override
+        public NotificationJournal get() {
+            try {
+                return new NotificationJournal(this);
+            } catch (final IOException exception) {
+                throw new NotificationException(exception);
+            }
+        }
+
+        /**
+         * @param segmentSize size of single journal segment (in bytes)
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder segmentSize(final int segmentSize) {
+
+            // Verify method requirements, ...
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("Segment size should be at least 4096 bytes.");
+            }
+
+            // ... and do the work.
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * @param syncEvery number of appended entries, after which the journal is forced to the disk
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder syncEvery(final int syncEvery) {
+
+            // Verify method requirements, ...
+            if (syncEvery <= 0) {
+                throw new IllegalArgumentException("Number of entries should be positive.");
+            }
+
+            // ... and do the work.
+            this.syncEvery = syncEvery;
+            return this;
+        }
+
+    }
+
+    /**
+     * Journal segment.
+     *
+     * <p>
+     * Each entry consists of payload length, payload checksum, delivery flag, and the payload itself. Entry having
+     * zero length marks the end of the segment.
+     * </p>
+     */
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+
+        private boolean closed;
+
+        private final FileChannel channel;
+
+        private final int number;
+
+        private final Path path;
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile int writeOffset;
+
+        Segment(final int number, final Path path, final int size) throws IOException {
+            this.number = number;
+            this.path = path;
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+
+            // Find the end of valid entries, counting the pending ones.
+            forEachEntry((offset, payload) -> {
+                if (PENDING == buffer.get(offset + 8)) {
+                    pending.incrementAndGet();
+                }
+            });
+        }
+
+        long append(final byte[] payload) {
+            final int offset = writeOffset;
+            buffer.put(offset + HEADER_SIZE, payload);
+            buffer.putInt(offset + 4, checksum(payload));
+            buffer.put(offset + 8, PENDING);
+            buffer.putInt(offset, payload.length);
+            writeOffset = offset + HEADER_SIZE + payload.length;
+            pending.incrementAndGet();
+            return ((long) number << 32) | offset;
+        }
+
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    channel.close();
+                } catch (final IOException exception) {
+                    // Segment is not used anymore, nothing more can be done.
+                }
+
+                // Mapped file cannot be deleted on some platforms, so it is unmapped right away.
+                unmap(buffer);
+            }
+        }
+
+        synchronized boolean conclude(final int offset, final byte state) {
+            final boolean result = !closed && (offset < writeOffset) && (PENDING == buffer.get(offset + 8));
+            if (result) {
+                buffer.put(offset + 8, state);
+                pending.decrementAndGet();
+            }
+            return result;
+        }
+
+        private void forEachEntry(final EntryConsumer consumer) {
+            int offset = 0;
+            while (offset + HEADER_SIZE <= buffer.capacity()) {
+                final int length = buffer.getInt(offset);
+                if ((length <= 0) || (offset + HEADER_SIZE + length > buffer.capacity())) {
+                    break;
+                }
+                final byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_SIZE, payload);
+                if (checksum(payload) != buffer.getInt(offset + 4)) {
+                    break;
+                }
+                consumer.accept(offset, payload);
+                offset += HEADER_SIZE + length;
+            }
+            writeOffset = offset;
+        }
+
+        synchronized void forEachPending(final EntryConsumer consumer) {
+            int offset = 0;
+            while (!closed && (offset < writeOffset)) {
+                final int length = buffer.getInt(offset);
+                if (PENDING == buffer.get(offset + 8)) {
+                    final byte[] payload = new byte[length];
+                    buffer.get(offset + HEADER_SIZE, payload);
+                    consumer.accept(offset, payload);
+                }
+                offset += HEADER_SIZE + length;
+            }
+        }
+
+        boolean hasRoomFor(final byte[] payload) {
+            return writeOffset + 2 * HEADER_SIZE + payload.length <= buffer.capacity();
+        }
+
+    }
+
+    /**
+     * Consumer of the journal entries.
+     */
+    @FunctionalInterface
+    private interface EntryConsumer {
+
+        void accept(int offset, byte[] payload);
+
+    }
+
+}
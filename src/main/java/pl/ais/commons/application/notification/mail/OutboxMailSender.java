@@ -0,0 +1,205 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.event.TransportEvent;
+import jakarta.mail.event.TransportListener;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link MailSender} recording accepted notifications in {@link NotificationJournal}, before passing them to
+ * the delegate.
+ *
+ * <p>
+ * Journal entry is marked as delivered, when the transport reports the delivery of the message (also partial one),
+ * so notifications which weren't delivered (ex. because of the crash, or transient failure of the relay) can be
+ * delivered again using {@link #replay()}. Entry is marked as failed, when the delegate rejects the notification
+ * permanently (see {@link ResilientMailSender#isTransient(Throwable)}, the failure is reported to the caller then),
+ * or the transport reports that the message wasn't delivered to any recipient, because all of them are invalid,
+ * so such notifications aren't replayed.
+ * </p>
+ *
+ * <p>
+ * Notification is considered being delivered (and isn't replayed) until the delegate returns, or - if the delegate
+ * is {@link AsyncMailSender} - until the delivery outcome is known. Failures of asynchronous delivery are recorded
+ * in the journal then, instead of being reported to the failure handler of the delegate.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class OutboxMailSender implements MailSender {
+
+    private final MailSender delegate;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final NotificationJournal journal;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param delegate mail sender used for delivering the notifications
+     * @param journal  journal recording accepted notifications
+     */
+    public OutboxMailSender(@Nonnull final MailSender delegate, @Nonnull final NotificationJournal journal) {
+        super();
+
+        // Verify constructor requirements, ...
+        if (null == delegate) {
+            throw new IllegalArgumentException("Delegate is required.");
+        }
+        if (null == journal) {
+            throw new IllegalArgumentException("Journal is required.");
+        }
+
+        // ... and initialize this instance fields.
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accept(final AddressedNotification notification, final TransportListener... listeners) {
+        final long entry = journal.append(notification);
+        inFlight.add(entry);
+        deliver(notification, entry, listeners);
+    }
+
+    private void conclude(final long entry, final boolean delivered) {
+        if (delivered) {
+            journal.markDelivered(entry);
+        } else {
+            journal.markFailed(entry);
+        }
+        inFlight.remove(entry);
+    }
+
+    private void deliver(final AddressedNotification notification, final long entry,
+                         final TransportListener... listeners) {
+        final TransportListener[] extended = Arrays.copyOf(listeners, listeners.length + 1);
+        extended[listeners.length] = new JournalingListener(entry);
+        if (delegate instanceof AsyncMailSender) {
+            final CompletableFuture<DeliveryOutcome> outcome =
+                ((AsyncMailSender) delegate).send(notification, extended);
+            final Throwable rejection =
+                outcome.isCompletedExceptionally() ? outcome.handle((result, failure) -> failure).join() : null;
+            if (rejection instanceof RejectedExecutionException) {
+
+                // Notification was rejected (ex. because of full queue), it will be replayed.
+                release(entry);
+                throw new NotificationException(rejection);
+            }
+            outcome.whenComplete((result, failure) -> {
+                if (null != failure) {
+                    settle(entry, failure);
+                } else {
+                    result.getFailure().ifPresentOrElse(cause -> settle(entry, cause), () -> release(entry));
+                }
+            });
+        } else {
+            try {
+                delegate.accept(notification, extended);
+            } catch (final RuntimeException exception) {
+                settle(entry, exception);
+                throw exception;
+            } finally {
+                release(entry);
+            }
+        }
+    }
+
+    private void release(final long entry) {
+        inFlight.remove(entry);
+    }
+
+    /**
+     * Passes the notifications recorded in the journal, but not delivered yet, to the delegate again.
+     *
+     * <p>
+     * Notifications being delivered at the moment (accepted or replayed by this sender, and waiting for the delivery
+     * outcome) are skipped.
+     * </p>
+     *
+     * @return number of notifications accepted by the delegate
+     */
+    public int replay() {
+        final AtomicInteger result = new AtomicInteger();
+        journal.replay((notification, entry) -> {
+            if (inFlight.add(entry)) {
+                try {
+                    deliver(notification, entry);
+                    result.incrementAndGet();
+                } catch (final RuntimeException exception) {
+                    // Entry is marked as failed, or will be replayed again.
+                }
+            }
+        });
+        return result.get();
+    }
+
+    private void settle(final long entry, final Throwable failure) {
+        if (ResilientMailSender.isTransient(failure)) {
+
+            // Relay is unavailable at the moment, the notification will be replayed.
+            release(entry);
+        } else {
+
+            // Replaying the notification would fail the same way.
+            conclude(entry, false);
+        }
+    }
+
+    /**
+     * Listener marking the journal entry as delivered, or failed.
+     */
+    private final class JournalingListener implements TransportListener {
+
+        private final long entry;
+
+        JournalingListener(final long entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void messageDelivered(final TransportEvent event) {
+            conclude(entry, true);
+        }
+
+        @Override
+        public void messageNotDelivered(final TransportEvent event) {
+            final Address[] invalid = event.getInvalidAddresses();
+            if ((null == invalid) || (0 == invalid.length)) {
+
+                // Recipients were rejected temporarily (ex. mailbox busy), the notification will be replayed.
+                release(entry);
+            } else {
+
+                // Some of the recipients are invalid, replaying would fail the same way.
+                conclude(entry, false);
+            }
+        }
+
+        @Override
+        public void messagePartiallyDelivered(final TransportEvent event) {
+
+            // Replaying would repeat the delivery to the recipients which got the message already.
+            conclude(entry, true);
+        }
+
+    }
+
+}
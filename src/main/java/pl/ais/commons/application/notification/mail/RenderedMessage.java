@@ -0,0 +1,152 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.Header;
+import jakarta.mail.Message.RecipientType;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import pl.ais.commons.application.notification.AddressType;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Message rendered once, and used as a template for creating many messages differing in per-recipient headers only.
+ *
+ * <p>
+ * Encoded content of the template (together with its MIME headers, and the headers common for all the messages,
+ * including the recipients set on the template) is shared by created messages, and written to the transport as is,
+ * without walking the notification components or encoding the content again. {@code Bcc} header is never set on
+ * created messages, their blind recipients are provided as the envelope recipients only.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Immutable
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class RenderedMessage {
+
+    private static final String[] PER_MESSAGE_HEADERS = {"Bcc", "Date", "Message-ID"};
+
+    private final byte[] content;
+
+    private final List<Header> commonHeaders;
+
+    private final Session session;
+
+    private RenderedMessage(final Session session, final List<Header> headers, final byte[] content) {
+        super();
+        this.session = session;
+        this.commonHeaders = headers;
+        this.content = content;
+    }
+
+    /**
+     * Renders given message.
+     *
+     * @param prototype the message to be rendered, having all the common headers and the content set, and
+     *                  the changes saved
+     * @return rendered message
+     */
+    @Nonnull
+    static RenderedMessage of(@Nonnull final MimeMessage prototype) {
+        try {
+            final List<Header> headers = new ArrayList<>();
+            Collections.list(prototype.getNonMatchingHeaders(PER_MESSAGE_HEADERS))
+                       .forEach(headers::add);
+
+            // Render the content only, skipping all the headers (and the empty line following them).
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            prototype.writeTo(output, Collections.list(prototype.getAllHeaders()).stream()
+                                                 .map(Header::getName)
+                                                 .toArray(String[]::new));
+            final byte[] rendered = output.toByteArray();
+            return new RenderedMessage(prototype.getSession(), Collections.unmodifiableList(headers),
+                Arrays.copyOfRange(rendered, lineSeparatorLength(rendered), rendered.length));
+        } catch (final IOException | MessagingException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    private static int lineSeparatorLength(final byte[] rendered) {
+
+        // Messages are written using CRLF line separators, but bare LF is tolerated as well.
+        int result = 0;
+        if ((result < rendered.length) && ('\r' == rendered[result])) {
+            result++;
+        }
+        if ((result < rendered.length) && ('\n' == rendered[result])) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Creates new message, having the content and the recipients of this rendered message.
+     *
+     * @return newly created message
+     */
+    @Nonnull
+    MimeMessage newMessage() {
+        try {
+            return new Instance(session);
+        } catch (final MessagingException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    /**
+     * Creates new message, having the content of this rendered message, showing the primary and CC recipients of
+     * given notification.
+     *
+     * @param addressed notification providing the recipients of the message
+     * @param parser    parser of the recipients addresses
+     * @return newly created message
+     */
+    @Nonnull
+    MimeMessage newMessage(@Nonnull final AddressedNotification addressed,
+                           @Nonnull final Function<String[], Address[]> parser) {
+        try {
+            final MimeMessage result = new Instance(session);
+            result.setRecipients(RecipientType.TO, addressed.getRecipients(AddressType.PRIMARY, parser));
+            result.setRecipients(RecipientType.CC, addressed.getRecipients(AddressType.CC, parser));
+            return result;
+        } catch (final MessagingException exception) {
+            throw new NotificationException(exception);
+        }
+    }
+
+    /**
+     * Message having the content of enclosing rendered message.
+     */
+    private final class Instance extends MimeMessage {
+
+        Instance(final Session session) throws MessagingException {
+            super(session);
+            for (final Header header : commonHeaders) {
+                addHeader(header.getName(), header.getValue());
+            }
+            setSentDate(new Date());
+            updateMessageID();
+
+            // Content is encoded already, and will be written as is.
+            this.content = RenderedMessage.this.content;
+            modified = false;
+            saved = true;
+        }
+
+    }
+
+}
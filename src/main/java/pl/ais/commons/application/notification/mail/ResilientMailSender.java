@@ -0,0 +1,363 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.event.TransportListener;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * {@link MailSender} retrying transient delivery failures of given delegate, and failing fast when the relay
+ * keeps failing.
+ *
+ * <p>
+ * Transient failures are retried with exponential backoff (with random jitter, spreading the retries of many
+ * callers). Consecutive transient failures (and I/O failures which aren't retried) open the {@link CircuitBreaker},
+ * and while it is open, notifications are rejected immediately with {@link NotificationException} caused by
+ * {@link RejectedExecutionException}, so the callers may spool them, instead of waiting for connection timeouts.
+ * Permanent failures reported by the relay reset the breaker, while the failures saying nothing about the relay
+ * (ex. invalid address) don't affect it. Breaker guards single relay, so the sender for each relay host should be
+ * wrapped separately.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class ResilientMailSender implements MailSender {
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final MailSender delegate;
+
+    private final long initialBackoff;
+
+    private final int maximumAttempts;
+
+    private final long maximumBackoff;
+
+    private final Predicate<? super Throwable> retryOn;
+
+    ResilientMailSender(final Builder builder) {
+        super();
+        delegate = builder.delegate;
+        maximumAttempts = builder.maximumAttempts;
+        initialBackoff = builder.initialBackoff.toNanos();
+        maximumBackoff = builder.maximumBackoff.toNanos();
+        retryOn = builder.retryOn;
+        circuitBreaker = new CircuitBreaker(builder.failureThreshold, builder.openTimeout);
+    }
+
+    /**
+     * Creates and returns the builder suitable for creating Resilient Mail Sender instances.
+     *
+     * @param delegate mail sender used for delivering the notifications
+     * @return newly created instance of the builder suitable for creating Resilient Mail Sender instances
+     */
+    public static Builder builder(@Nonnull final MailSender delegate) {
+
+        // Verify method requirements, ...
+        if (null == delegate) {
+            throw new IllegalArgumentException("Delegate is required.");
+        }
+
+        // ... and do the work.
+        return new Builder(delegate);
+    }
+
+    private static boolean isEmpty(@Nullable final Address[] addresses) {
+        return (null == addresses) || (0 == addresses.length);
+    }
+
+    /**
+     * Determines if given delivery failure is transient, and the delivery may succeed if retried.
+     *
+     * <p>
+     * I/O problems of connecting to the relay (ex. connection refused, connect timed out, or unknown host), and SMTP
+     * replies having {@code 4xx} code are considered transient. Other I/O problems (ex. read timeout while waiting
+     * for the reply to transferred message) are considered permanent, as the message may have been accepted already,
+     * and retrying could duplicate it. Authentication failures, SMTP replies having {@code 5xx} code, invalid
+     * addresses, and messages delivered to some recipients already (retrying would repeat the delivery) are
+     * considered permanent, as are all unrecognized failures.
+     * </p>
+     *
+     * @param failure the failure
+     * @return {@code true} if given failure is transient, {@code false} otherwise
+     */
+    public static boolean isTransient(@Nullable final Throwable failure) {
+        for (Throwable cause = failure; null != cause; cause = (cause == cause.getCause()) ? null : cause.getCause()) {
+            if (cause instanceof AuthenticationFailedException) {
+                return false;
+            }
+            if (cause instanceof SendFailedException) {
+                final SendFailedException sendFailure = (SendFailedException) cause;
+                if (!isEmpty(sendFailure.getInvalidAddresses()) || !isEmpty(sendFailure.getValidSentAddresses())) {
+                    return false;
+                }
+            }
+            if (cause instanceof IOException) {
+                return isConnectFailure((IOException) cause);
+            }
+            final int replyCode = replyCodeOf(cause.getMessage());
+            if (replyCode >= 400) {
+                return replyCode < 500;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if given failure was caused by broken communication with the relay.
+     *
+     * @param failure the failure
+     * @return {@code true} if given failure was caused by I/O problem, {@code false} otherwise
+     */
+    static boolean isIoFailure(@Nullable final Throwable failure) {
+        for (Throwable cause = failure; null != cause; cause = (cause == cause.getCause()) ? null : cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if given failure reports the reply of the relay (which is available then).
+     *
+     * @param failure the failure
+     * @return {@code true} if given failure reports the reply of the relay, {@code false} otherwise
+     */
+    static boolean isRelayReply(@Nullable final Throwable failure) {
+        for (Throwable cause = failure; null != cause; cause = (cause == cause.getCause()) ? null : cause.getCause()) {
+            if ((cause instanceof AuthenticationFailedException) || (cause instanceof SendFailedException)
+                || (replyCodeOf(cause.getMessage()) >= 200)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConnectFailure(final IOException failure) {
+        final String message = failure.getMessage();
+        return (failure instanceof ConnectException) || (failure instanceof NoRouteToHostException)
+            || (failure instanceof UnknownHostException) || ((failure instanceof SocketTimeoutException)
+            && (null != message) && message.toLowerCase(Locale.ROOT).startsWith("connect"));
+    }
+
+    private static int replyCodeOf(@Nullable final String message) {
+        int result = -1;
+        if ((null != message) && (message.length() >= 3)
+            && ((3 == message.length()) || (' ' == message.charAt(3)) || ('-' == message.charAt(3)))) {
+            try {
+                result = Integer.parseInt(message.substring(0, 3));
+            } catch (final NumberFormatException exception) {
+                // Message doesn't start with SMTP reply code.
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accept(final AddressedNotification notification, final TransportListener... listeners) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new NotificationException(new RejectedExecutionException("Circuit breaker is open."));
+        }
+        boolean acquired = true;
+        try {
+            long backoff = initialBackoff;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    delegate.accept(notification, listeners);
+                    acquired = false;
+                    circuitBreaker.onSuccess();
+                    return;
+                } catch (final RuntimeException exception) {
+                    if (!retryOn.test(exception)) {
+                        if (isRelayReply(exception)) {
+
+                            // Relay responded, only the notification cannot be delivered.
+                            acquired = false;
+                            circuitBreaker.onSuccess();
+                        } else if (isIoFailure(exception)) {
+
+                            // Message may have been accepted already, so it isn't retried, but the relay is failing.
+                            acquired = false;
+                            circuitBreaker.onFailure();
+                        }
+
+                        // Other failures (ex. invalid input) say nothing about the relay, the permit is released only.
+                        throw exception;
+                    }
+                    acquired = false;
+                    circuitBreaker.onFailure();
+                    if (attempt >= maximumAttempts) {
+                        throw exception;
+                    }
+                    acquired = circuitBreaker.tryAcquire();
+                    if (!acquired || !pause(backoff)) {
+                        throw exception;
+                    }
+                    backoff = Math.min(2 * backoff, maximumBackoff);
+                }
+            }
+        } finally {
+
+            // Delivery ended without recorded outcome (ex. because of an error), so the permit is released.
+            if (acquired) {
+                circuitBreaker.release();
+            }
+        }
+    }
+
+    /**
+     * @return circuit breaker guarding the delegate
+     */
+    @Nonnull
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private boolean pause(final long backoff) {
+
+        // Wait for at least half of the backoff, randomizing the rest.
+        final long half = backoff / 2;
+        try {
+            TimeUnit.NANOSECONDS.sleep(half + ThreadLocalRandom.current().nextLong(half + 1));
+            return true;
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Builder suitable for creating Resilient Mail Sender instances.
+     */
+    public static final class Builder implements Supplier<ResilientMailSender> {
+
+        private final MailSender delegate;
+
+        private int failureThreshold = 5;
+
+        private Duration initialBackoff = Duration.ofMillis(200);
+
+        private int maximumAttempts = 4;
+
+        private Duration maximumBackoff = Duration.ofSeconds(10);
+
+        private Duration openTimeout = Duration.ofSeconds(30);
+
+        private Predicate<? super Throwable> retryOn = ResilientMailSender::isTransient;
+
+        Builder(final MailSender delegate) {
+            super();
+            this.delegate = delegate;
+        }
+
+        /**
+         * @param initialBackoff time of waiting before the first retry, doubled for each next one
+         * @param maximumBackoff maximum time of waiting before the retry
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder backoff(@Nonnull final Duration initialBackoff, @Nonnull final Duration maximumBackoff) {
+
+            // Verify method requirements, ...
+            if ((null == initialBackoff) || initialBackoff.isNegative()) {
+                throw new IllegalArgumentException("Non-negative initial backoff is required.");
+            }
+            if ((null == maximumBackoff) || (maximumBackoff.compareTo(initialBackoff) < 0)) {
+                throw new IllegalArgumentException("Maximum backoff not shorter than initial one is required.");
+            }
+
+            // ... and do the work.
+            this.initialBackoff = initialBackoff;
+            this.maximumBackoff = maximumBackoff;
+            return this;
+        }
+
+        /**
+         * @param failureThreshold number of consecutive transient failures opening the circuit breaker
+         * @param openTimeout      time after which open circuit breaker permits probing delivery
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder circuitBreaker(final int failureThreshold, @Nonnull final Duration openTimeout) {
+
+            // Verify method requirements, ...
+            if (failureThreshold <= 0) {
+                throw new IllegalArgumentException("Failure threshold should be positive.");
+            }
+            if ((null == openTimeout) || openTimeout.isNegative()) {
+                throw new IllegalArgumentException("Non-negative open timeout is required.");
+            }
+
+            // ... and do the work.
+            this.failureThreshold = failureThreshold;
+            this.openTimeout = openTimeout;
+            return this;
+        }
+
+        /**
+         * @return newly created Resilient Mail Sender
+         */
+        @Override
+        public ResilientMailSender get() {
+            return new ResilientMailSender(this);
+        }
+
+        /**
+         * @param maximumAttempts maximum number of delivery attempts (including the first one)
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder maximumAttempts(final int maximumAttempts) {
+
+            // Verify method requirements, ...
+            if (maximumAttempts <= 0) {
+                throw new IllegalArgumentException("Maximum number of attempts should be positive.");
+            }
+
+            // ... and do the work.
+            this.maximumAttempts = maximumAttempts;
+            return this;
+        }
+
+        /**
+         * @param retryOn predicate determining if the delivery failure is transient (defaults to
+         *                {@link ResilientMailSender#isTransient(Throwable)})
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder retryOn(@Nonnull final Predicate<? super Throwable> retryOn) {
+
+            // Verify method requirements, ...
+            if (null == retryOn) {
+                throw new IllegalArgumentException("Retry predicate is required.");
+            }
+
+            // ... and do the work.
+            this.retryOn = retryOn;
+            return this;
+        }
+
+    }
+
+}
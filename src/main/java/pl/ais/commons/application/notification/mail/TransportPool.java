@@ -0,0 +1,380 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.event.TransportListener;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pool of connected {@link Transport} instances.
+ *
+ * <p>
+ * Connections are reused for sending many messages, sparing the connection handshake (TCP, TLS, authentication)
+ * for each of them. Pool limits the number of simultaneously used connections, closes the connections which were
+ * idle for too long, or have sent the maximum number of messages, and verifies the connections idle for some time
+ * before using them (for SMTP transport {@link Transport#isConnected()} issues {@code NOOP} command). Failure of
+ * opening new connection (including authentication failure) is retried once. Failure of sending the message is never
+ * retried, as the message may have been accepted by the server already - the connection is discarded, and the failure
+ * is reported to the caller. Callers wait for the connection (when all of them are in use) for limited time only.
+ * </p>
+ *
+ * <p>
+ * Transport listeners are attached for the time of sending single message only.
+ * </p>
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@ThreadSafe
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TransportPool implements AutoCloseable {
+
+    private final long borrowTimeout;
+
+    private volatile boolean closed;
+
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+
+    private final long idleTimeout;
+
+    private final int maximumMessages;
+
+    private final LongAdder opened = new LongAdder();
+
+    private final Semaphore permits;
+
+    private final Session session;
+
+    private final long validationInterval;
+
+    TransportPool(final Builder builder) {
+        super();
+        session = builder.session;
+        permits = new Semaphore(builder.maximumSize, true);
+        borrowTimeout = builder.borrowTimeout.toNanos();
+        idleTimeout = builder.idleTimeout.toNanos();
+        validationInterval = builder.validationInterval.toNanos();
+        maximumMessages = builder.maximumMessages;
+    }
+
+    /**
+     * Creates and returns the builder suitable for creating Transport Pool instances.
+     *
+     * @param session mail session used for creating the connections
+     * @return newly created instance of the builder suitable for creating Transport Pool instances
+     */
+    public static Builder builder(@Nonnull final Session session) {
+
+        // Verify method requirements, ...
+        if (null == session) {
+            throw new IllegalArgumentException("Session is required.");
+        }
+
+        // ... and do the work.
+        return new Builder(session);
+    }
+
+    private static void closeQuietly(final PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (final MessagingException exception) {
+            // Connection is discarded anyway, nothing more can be done.
+        }
+    }
+
+    private PooledTransport acquire() throws MessagingException {
+        final long now = System.nanoTime();
+        for (PooledTransport candidate = idle.pollFirst(); null != candidate; candidate = idle.pollFirst()) {
+            if ((now - candidate.releasedAt > idleTimeout)
+                || ((now - candidate.releasedAt > validationInterval) && !candidate.transport.isConnected())) {
+                closeQuietly(candidate);
+            } else {
+                return candidate;
+            }
+        }
+        return connect();
+    }
+
+    /**
+     * Closes all idle connections, and prevents creating new ones. Connections being in use are closed, when they
+     * are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PooledTransport pooled = idle.pollFirst(); null != pooled; pooled = idle.pollFirst()) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        for (int attempt = 0; ; attempt++) {
+            final Transport transport = session.getTransport();
+            try {
+                transport.connect();
+                opened.increment();
+                return new PooledTransport(transport);
+            } catch (final MessagingException exception) {
+
+                // Nothing was sent yet, so connecting may be safely repeated.
+                if (attempt > 0) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the connections, which were idle for too long.
+     */
+    public void evictIdle() {
+        final long now = System.nanoTime();
+        for (PooledTransport pooled = idle.pollLast(); null != pooled; pooled = idle.pollLast()) {
+            if (now - pooled.releasedAt <= idleTimeout) {
+                idle.offerLast(pooled);
+                break;
+            }
+            closeQuietly(pooled);
+        }
+    }
+
+    /**
+     * @return number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return number of connections opened by this pool so far
+     */
+    public long getOpenedCount() {
+        return opened.sum();
+    }
+
+    /**
+     * @return mail session used for creating the connections
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    private void release(final PooledTransport pooled, final boolean healthy) {
+        if (healthy && !closed && (pooled.messages < maximumMessages)) {
+            pooled.releasedAt = System.nanoTime();
+            idle.offerFirst(pooled);
+        } else {
+            closeQuietly(pooled);
+        }
+    }
+
+    /**
+     * Sends given message to all its recipients, using pooled connection.
+     *
+     * @param message   the message to be sent
+     * @param listeners listeners watching the delivery process
+     * @throws MessagingException if the message cannot be sent
+     */
+    public void send(@Nonnull final Message message, final TransportListener... listeners) throws MessagingException {
+        send(message, message.getAllRecipients(), listeners);
+    }
+
+    /**
+     * Sends given message to given recipients, using pooled connection.
+     *
+     * @param message   the message to be sent
+     * @param addresses envelope recipients of the message (may differ from the recipients shown by the message)
+     * @param listeners listeners watching the delivery process
+     * @throws MessagingException if the message cannot be sent (also if no connection was available within
+     *                            the borrow timeout, or the caller was interrupted while waiting for it)
+     */
+    public void send(@Nonnull final Message message, @Nonnull final Address[] addresses,
+                     final TransportListener... listeners) throws MessagingException {
+        if (closed) {
+            throw new IllegalStateException("Transport pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.NANOSECONDS)) {
+                throw new MessagingException("Timed out waiting for pooled connection.");
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for pooled connection.", exception);
+        }
+        try {
+            final PooledTransport pooled = acquire();
+            boolean healthy = false;
+            try {
+                pooled.send(message, addresses, listeners);
+                healthy = true;
+            } catch (final SendFailedException exception) {
+
+                // Message was rejected (ex. because of invalid addresses), but the connection is fine.
+                healthy = true;
+                throw exception;
+            } finally {
+                release(pooled, healthy);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Builder suitable for creating Transport Pool instances.
+     */
+    public static final class Builder implements Supplier<TransportPool> {
+
+        private Duration borrowTimeout = Duration.ofSeconds(30);
+
+        private Duration idleTimeout = Duration.ofMinutes(1);
+
+        private int maximumMessages = 100;
+
+        private int maximumSize = 4;
+
+        private final Session session;
+
+        private Duration validationInterval = Duration.ofSeconds(10);
+
+        Builder(final Session session) {
+            super();
+            this.session = session;
+        }
+
+        /**
+         * @param borrowTimeout maximum time of waiting for the connection, when all of them are in use
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder borrowTimeout(@Nonnull final Duration borrowTimeout) {
+
+            // Verify method requirements, ...
+            if ((null == borrowTimeout) || borrowTimeout.isNegative()) {
+                throw new IllegalArgumentException("Non-negative borrow timeout is required.");
+            }
+
+            // ... and do the work.
+            this.borrowTimeout = borrowTimeout;
+            return this;
+        }
+
+        /**
+         * @return newly created Transport Pool
+         */
+        @Override
+        public TransportPool get() {
+            return new TransportPool(this);
+        }
+
+        /**
+         * @param idleTimeout time after which idle connection is closed
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder idleTimeout(@Nonnull final Duration idleTimeout) {
+
+            // Verify method requirements, ...
+            if ((null == idleTimeout) || idleTimeout.isNegative()) {
+                throw new IllegalArgumentException("Non-negative idle timeout is required.");
+            }
+
+            // ... and do the work.
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * @param maximumMessages maximum number of messages sent using single connection
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder maximumMessagesPerConnection(final int maximumMessages) {
+
+            // Verify method requirements, ...
+            if (maximumMessages <= 0) {
+                throw new IllegalArgumentException("Maximum number of messages should be positive.");
+            }
+
+            // ... and do the work.
+            this.maximumMessages = maximumMessages;
+            return this;
+        }
+
+        /**
+         * @param maximumSize maximum number of simultaneously used connections
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder maximumSize(final int maximumSize) {
+
+            // Verify method requirements, ...
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("Maximum size should be positive.");
+            }
+
+            // ... and do the work.
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * @param validationInterval time after which idle connection is verified before being used
+         * @return the builder itself, for method invocation chaining
+         */
+        public Builder validationInterval(@Nonnull final Duration validationInterval) {
+
+            // Verify method requirements, ...
+            if ((null == validationInterval) || validationInterval.isNegative()) {
+                throw new IllegalArgumentException("Non-negative validation interval is required.");
+            }
+
+            // ... and do the work.
+            this.validationInterval = validationInterval;
+            return this;
+        }
+
+    }
+
+    /**
+     * Pooled connection.
+     */
+    private static final class PooledTransport {
+
+        private int messages;
+
+        private long releasedAt;
+
+        private final Transport transport;
+
+        PooledTransport(final Transport transport) {
+            this.transport = transport;
+        }
+
+        void send(final Message message, final Address[] addresses, final TransportListener[] listeners)
+            throws MessagingException {
+            for (final TransportListener listener : listeners) {
+                transport.addTransportListener(listener);
+            }
+            try {
+                messages++;
+                transport.sendMessage(message, addresses);
+            } finally {
+                for (final TransportListener listener : listeners) {
+                    transport.removeTransportListener(listener);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package pl.ais.commons.application.feature;
+
+import org.junit.Test;
+import pl.ais.commons.application.feature.internal.DefaultFeatureA;
+import pl.ais.commons.application.feature.internal.FeatureA;
+import pl.ais.commons.application.feature.internal.FeatureB;
+import pl.ais.commons.application.feature.internal.FeatureC;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies {@link CompactFeaturesHolder} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@SuppressWarnings("static-method")
+public class CompactFeaturesHolderExpectations {
+
+    private static final DefaultFeatureA FEATURE_A = new DefaultFeatureA();
+
+    /**
+     * @return map holding Feature A, and virtual Feature B
+     */
+    private static Map<Class<?>, Optional<?>> featuresMap() {
+        final Map<Class<?>, Optional<?>> result = new LinkedHashMap<>();
+        result.put(FeatureB.class, Optional.empty());
+        result.put(FeatureA.class, Optional.of(FEATURE_A));
+        return result;
+    }
+
+    private static FeaturesHolder createFeaturesHolder() {
+        return new FeaturesHolderFactory(CompactFeaturesHolder.class).createFeaturesHolder(featuresMap());
+    }
+
+    /**
+     * Verifies if bulk queries are answered correctly.
+     */
+    @Test
+    public void shouldAnswerBulkQueriesCorrectly() {
+
+        // Given compact FeaturesHolder with some set of features, ...
+        final FeaturesHolder featuresHolder = createFeaturesHolder();
+
+        // ... when we ask about the sets of features, ...
+        final boolean owned = featuresHolder.hasAllFeatures(FeatureSet.of(FeatureA.class, FeatureB.class));
+        final boolean partiallyOwned = featuresHolder.hasAllFeatures(FeatureSet.of(FeatureA.class, FeatureC.class));
+        final boolean anyOwned = featuresHolder.hasAnyFeature(FeatureSet.of(FeatureC.class, FeatureB.class));
+        final boolean noneOwned = featuresHolder.hasAnyFeature(FeatureSet.of(FeatureC.class));
+
+        // ... then the answers should reflect the features owned by the holder.
+        assertTrue("Should own all features from the set.", owned);
+        assertFalse("Shouldn't own all features from the set.", partiallyOwned);
+        assertTrue("Should own any feature from the set.", anyOwned);
+        assertFalse("Shouldn't own any feature from the set.", noneOwned);
+    }
+
+    /**
+     * Verifies if compact holder is equal to other holder created from the same features.
+     */
+    @Test
+    public void shouldBeEqualToHolderHavingTheSameFeatures() {
+
+        // Given two compact FeaturesHolders, created from the same features, ...
+        final FeaturesHolder first = createFeaturesHolder();
+        final FeaturesHolder second = createFeaturesHolder();
+
+        // ... when we compare them, then they should be equal.
+        assertEquals("Holders should be equal.", first, second);
+        assertEquals("Holders should have the same hash code.", first.hashCode(), second.hashCode());
+    }
+
+    /**
+     * Verifies if querying the holder about foreign feature doesn't assign the index to it.
+     */
+    @Test
+    public void shouldNotAssignIndexToQueriedFeature() {
+
+        // Given compact FeaturesHolder with some set of features, ...
+        final FeaturesHolder featuresHolder = createFeaturesHolder();
+
+        // ... when we ask about foreign feature, ...
+        final boolean owned = featuresHolder.hasFeature(ForeignFeature.class);
+        final boolean found = featuresHolder.findFeature(ForeignFeature.class).isUnsupported();
+        final boolean contained = FeatureSet.of(FeatureA.class).contains(ForeignFeature.class);
+
+        // ... then it should be reported as unsupported, and no index should be assigned to it.
+        assertFalse("Foreign feature shouldn't be owned.", owned);
+        assertTrue("Foreign feature should be unsupported.", found);
+        assertFalse("Foreign feature shouldn't be contained.", contained);
+        assertEquals("Index shouldn't be assigned to foreign feature.", FeatureIndex.UNASSIGNED,
+            FeatureIndex.find(ForeignFeature.class));
+    }
+
+    /**
+     * Verifies if an exception is raised when unsupported feature is accessed.
+     */
+    @Test(expected = UnsupportedFeatureException.class)
+    public void shouldRaiseExceptionOnUnsupportedFeatureAccess() {
+        createFeaturesHolder().getFeature(FeatureC.class);
+    }
+
+    /**
+     * Verifies if an exception is raised when virtual feature is accessed.
+     */
+    @Test(expected = VirtualFeatureException.class)
+    public void shouldRaiseExceptionOnVirtualFeatureAccess() {
+        createFeaturesHolder().getFeature(FeatureB.class);
+    }
+
+    /**
+     * Verifies if existing, non-virtual feature is correctly returned.
+     */
+    @Test
+    public void shouldReturnExistingFeature() {
+
+        // Given compact FeaturesHolder with some set of features, ...
+        final FeaturesHolder featuresHolder = createFeaturesHolder();
+
+        // ... when we request feature from the set, which is not virtual, ...
+        final FeatureA feature = featuresHolder.getFeature(FeatureA.class);
+
+        // ... then it should return the feature handler.
+        assertSame("Should return feature handler.", FEATURE_A, feature);
+    }
+
+    /**
+     * Feature which is never owned by any holder.
+     */
+    private interface ForeignFeature {
+    }
+
+}
@@ -6,13 +6,24 @@ import pl.ais.commons.application.feature.internal.FeatureA;
 import pl.ais.commons.application.feature.internal.FeatureB;
 import pl.ais.commons.application.feature.internal.FeatureC;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Verifies {@link FeaturesHolder} expectations.
@@ -116,4 +127,156 @@ public class FeaturesHolderExpectations {
         assertNotNull("Should return feature.", feature);
     }
 
+    /**
+     * Verifies if feature lookup reports the status of the feature without raising an exception.
+     */
+    @Test
+    public void shouldReportFeatureStatusOnLookup() {
+
+        // Given FeaturesHolder with some set of features, ...
+        final FeaturesHolderFactory factory = FeaturesHolderFactory.getInstance();
+        final FeaturesHolder featuresHolder = factory.createFeaturesHolder(featuresMap());
+
+        // ... when we look up the features, ...
+        final FeatureLookup<FeatureA> present = featuresHolder.findFeature(FeatureA.class);
+        final FeatureLookup<FeatureB> virtual = featuresHolder.findFeature(FeatureB.class);
+        final FeatureLookup<FeatureC> unsupported = featuresHolder.findFeature(FeatureC.class);
+
+        // ... then each lookup result should describe the status of the feature, ...
+        assertTrue("Feature A should be present.", present.isPresent());
+        assertEquals("Feature B should be virtual.", FeatureLookup.Status.VIRTUAL, virtual.getStatus());
+        assertEquals("Feature C should be unsupported.", FeatureLookup.Status.UNSUPPORTED, unsupported.getStatus());
+
+        // ... and repeated lookups should return the same results.
+        assertSame("Lookup result should be reused.", present, featuresHolder.findFeature(FeatureA.class));
+    }
+
+    /**
+     * Verifies if deferred feature handler is created on first access only.
+     */
+    @Test
+    public void shouldCreateDeferredFeatureOnFirstAccess() {
+
+        // Given FeaturesHolder owning the feature bound to deferred handler, ...
+        final AtomicInteger creations = new AtomicInteger();
+        final Map<Class<?>, Optional<?>> featuresMap = new LinkedHashMap<>();
+        featuresMap.put(FeatureA.class, Optional.of(DeferredFeature.of(() -> {
+            creations.incrementAndGet();
+            return new DefaultFeatureA();
+        })));
+        final FeaturesHolder featuresHolder = FeaturesHolderFactory.getInstance().createFeaturesHolder(featuresMap);
+
+        // ... when we ask about existence of the feature, ...
+        final boolean owned = featuresHolder.hasFeature(FeatureA.class) && featuresHolder.findFeature(FeatureA.class)
+                                                                                        .isPresent();
+
+        // ... then the feature should be reported as present, without creating the handler, ...
+        assertTrue("Feature A should be present.", owned);
+        assertEquals("Handler shouldn't be created yet.", 0, creations.get());
+
+        // ... and the handler should be created once, when accessed.
+        final FeatureA first = featuresHolder.getFeature(FeatureA.class);
+        assertSame("Handler should be reused.", first, featuresHolder.getFeature(FeatureA.class));
+        assertEquals("Handler should be created once.", 1, creations.get());
+    }
+
+    /**
+     * Verifies if deserialized holder binds its features to the handlers provided by {@link FeatureRebinding} binder
+     * registered for the class loader of deserializing thread.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldRebindFeaturesOnDeserialization() throws IOException, ClassNotFoundException {
+
+        // Given FeaturesHolder with some set of features (having handlers which are not serializable), ...
+        final FeaturesHolder featuresHolder = FeaturesHolderFactory.getInstance().createFeaturesHolder(featuresMap());
+        final FeatureA handler = new DefaultFeatureA();
+        final Function<Class<?>, Optional<?>> binder = feature -> Optional.of(handler);
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        FeatureRebinding.register(classLoader, binder);
+        try {
+
+            // ... when we serialize and deserialize it, ...
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeObject(featuresHolder);
+            }
+            final FeaturesHolder deserialized;
+            try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                deserialized = (FeaturesHolder) input.readObject();
+            }
+
+            // ... then deserialized holder should own the same features, ...
+            assertEquals("Holder class should be preserved.", featuresHolder.getClass(), deserialized.getClass());
+            assertTrue("Feature A should be present.", deserialized.findFeature(FeatureA.class).isPresent());
+            assertTrue("Feature B should be virtual.", deserialized.findFeature(FeatureB.class).isVirtual());
+            assertFalse("Feature C should be unsupported.", deserialized.hasFeature(FeatureC.class));
+
+            // ... with the handlers bound using registered binder.
+            assertSame("Handler should be rebound.", handler, deserialized.getFeature(FeatureA.class));
+        } finally {
+            FeatureRebinding.unregister(classLoader, binder);
+        }
+    }
+
+    /**
+     * Verifies if feature exceptions can be created without capturing the stack trace.
+     */
+    @Test
+    public void shouldAllowCreatingExceptionsWithoutStackTrace() {
+
+        // When we create exception without capturing the stack trace, ...
+        final FeatureException exception = new UnsupportedFeatureException(FeatureC.class, false);
+
+        // ... then it should have no stack trace.
+        assertEquals("Exception should have no stack trace.", 0, exception.getStackTrace().length);
+    }
+
+    /**
+     * Verifies if deserialization of the holder, which class cannot be used by {@link FeaturesHolderFactory}, is
+     * reported as invalid object.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldRejectDeserializationOfUnsupportedHolderClass() throws IOException, ClassNotFoundException {
+
+        // Given serialized form of the holder, which class has no constructor accepting features map, ...
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(new SerializedFeaturesHolder(UnsupportedFeaturesHolder.class, new LinkedHashMap<>()));
+        }
+        final Function<Class<?>, Optional<?>> binder = feature -> Optional.empty();
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        FeatureRebinding.register(classLoader, binder);
+
+        // When we deserialize it, ...
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            input.readObject();
+            fail("Deserialization should fail.");
+        } catch (final InvalidObjectException exception) {
+
+            // ... then it should be reported as invalid object.
+            assertTrue("Cause should be reported.", exception.getCause() instanceof IllegalArgumentException);
+        } finally {
+            FeatureRebinding.unregister(classLoader, binder);
+        }
+    }
+
+    /**
+     * Holder having no constructor accepting features map.
+     */
+    private static final class UnsupportedFeaturesHolder extends FeaturesHolderSupport {
+
+        private static final long serialVersionUID = 5524109871722938516L;
+
+        UnsupportedFeaturesHolder() {
+            super(new LinkedHashMap<>());
+        }
+
+    }
+
 }
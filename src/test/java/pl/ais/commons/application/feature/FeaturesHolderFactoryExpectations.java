@@ -6,14 +6,20 @@ import pl.ais.commons.application.feature.internal.FeatureA;
 import pl.ais.commons.application.feature.internal.OperationalFeaturesHolder;
 import pl.ais.commons.application.feature.internal.UnusableFeaturesHolder;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Verifies {@link FeaturesHolderFactory} expectations.
@@ -82,6 +88,62 @@ public class FeaturesHolderFactoryExpectations {
         // ... then exception will be thrown.
     }
 
+    /**
+     * Verifies if {@link FeaturesHolderFactory} reports the error raised by the constructor of broken
+     * {@link FeaturesHolder} type the same way, no matter if the constructor is called reflectively or not.
+     *
+     * @throws NoSuchMethodException if the constructor of broken type cannot be found
+     */
+    @Test
+    public void factoryShouldWrapErrorRaisedByBrokenType() throws NoSuchMethodException {
+
+        // Given broken FeaturesHolder type, and the functions calling its constructor (generated and reflective), ...
+        final Function<Map<Class<?>, Optional<?>>, FeaturesHolder> generated =
+            new FeaturesHolderFactory(FailingFeaturesHolder.class)::createFeaturesHolder;
+        final Function<Map<Class<?>, Optional<?>>, FeaturesHolder> reflective =
+            FeaturesHolderFactory.reflective(FailingFeaturesHolder.class.getConstructor(Map.class));
+
+        for (final Function<Map<Class<?>, Optional<?>>, FeaturesHolder> function : List.of(generated, reflective)) {
+
+            // ... when we create FeaturesHolder, ...
+            try {
+                function.apply(emptyFeaturesMap());
+                fail("Broken FeaturesHolder type shouldn't be instantiated.");
+            } catch (final IllegalStateException exception) {
+
+                // ... then the error raised by the constructor should be reported as the cause.
+                assertThat("Cause should be InvocationTargetException.", exception.getCause(),
+                    instanceOf(InvocationTargetException.class));
+                assertThat("Error raised by the constructor should be reported.", exception.getCause().getCause(),
+                    instanceOf(AssertionError.class));
+            }
+        }
+    }
+
+    /**
+     * Verifies if {@link FeaturesHolderFactory} reports the exception raised by the constructor of broken
+     * {@link FeaturesHolder} type as the cause of {@link IllegalStateException}.
+     */
+    @Test
+    public void factoryShouldWrapExceptionRaisedByBrokenType() {
+
+        // Given broken FeaturesHolder type, ...
+        final FeaturesHolderFactory factory = new FeaturesHolderFactory(BrokenFeaturesHolder.class);
+
+        // ... when we create FeaturesHolder, ...
+        try {
+            factory.createFeaturesHolder(emptyFeaturesMap());
+            fail("Broken FeaturesHolder type shouldn't be instantiated.");
+        } catch (final IllegalStateException exception) {
+
+            // ... then the exception raised by the constructor should be reported as the cause.
+            assertThat("Cause should be InvocationTargetException.", exception.getCause(),
+                instanceOf(InvocationTargetException.class));
+            assertThat("Exception raised by the constructor should be reported.", exception.getCause().getCause(),
+                instanceOf(IllegalArgumentException.class));
+        }
+    }
+
     /**
      * Verifies if {@link FeaturesHolderFactory} throws {@link IllegalArgumentException} when unusable
      * {@link FeaturesHolder} type was requested.
@@ -116,4 +178,47 @@ public class FeaturesHolderFactoryExpectations {
             featuresHolder.hasFeature(FeatureA.class));
     }
 
+    /**
+     * Verifies if interning {@link FeaturesHolderFactory} returns canonical instance per equal features map.
+     */
+    @Test
+    public void interningFactoryShouldReturnCanonicalInstances() {
+
+        // Given interning FeaturesHolderFactory, ...
+        final FeaturesHolderFactory factory = FeaturesHolderFactory.getInstance().interning();
+
+        // ... when we create FeaturesHolders using equal features maps, ...
+        final Map<Class<?>, Optional<?>> featuresMap = new LinkedHashMap<>();
+        featuresMap.put(FeatureA.class, Optional.empty());
+
+        final FeaturesHolder first = factory.createFeaturesHolder(featuresMap);
+        final FeaturesHolder second = factory.createFeaturesHolder(new LinkedHashMap<>(featuresMap));
+
+        // ... then the same instance should be returned (also by other interning factory), ...
+        assertSame("Interning factory should return canonical instance.", first, second);
+        assertSame("Interning factories should share canonical instances.", first,
+            new FeaturesHolderFactory(DefaultFeaturesHolder.class).interning().createFeaturesHolder(featuresMap));
+
+        // ... unlike for the default factory.
+        assertNotSame("Default factory should return new instance.", first,
+            FeaturesHolderFactory.getInstance().createFeaturesHolder(featuresMap));
+    }
+
+    /**
+     * Example of {@link FeaturesHolder} implementation, which constructor raises an error.
+     */
+    public static final class FailingFeaturesHolder extends FeaturesHolderSupport {
+
+        private static final long serialVersionUID = 7412035846624397127L;
+
+        /**
+         * @param featuresMap mapping of the features owned by the holder
+         */
+        public FailingFeaturesHolder(final Map<Class<?>, Optional<?>> featuresMap) {
+            super(featuresMap);
+            throw new AssertionError("Constructor failed.");
+        }
+
+    }
+
 }
@@ -16,6 +16,8 @@ import java.util.Optional;
 @Immutable
 public final class BrokenFeaturesHolder extends FeaturesHolderSupport {
 
+    private static final long serialVersionUID = -2468271466360958419L;
+
     /**
      * @param featuresMap mapping of the features owned by the holder
      */
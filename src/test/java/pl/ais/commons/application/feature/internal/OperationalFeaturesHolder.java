@@ -16,6 +16,8 @@ import java.util.Optional;
 @Immutable
 public final class OperationalFeaturesHolder extends FeaturesHolderSupport {
 
+    private static final long serialVersionUID = 4027711934857306728L;
+
     /**
      * @param featuresMap mapping of the features owned by the holder
      */
@@ -0,0 +1,100 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.junit.Test;
+import pl.ais.commons.application.feature.FeaturesHolder;
+import pl.ais.commons.application.feature.FeaturesHolderFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies {@link FeaturesHolderCache} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@SuppressWarnings("static-method")
+public class FeaturesHolderCacheExpectations {
+
+    private static FeaturesHolder createFeaturesHolder(final Object key) {
+        return FeaturesHolderFactory.getInstance().createFeaturesHolder(Collections.emptyMap());
+    }
+
+    /**
+     * Verifies if the cache evicts entries which weren't referenced recently, when its maximum size is exceeded.
+     */
+    @Test
+    public void shouldEvictEntriesNotReferencedRecently() {
+
+        // Given cache holding 2 entries at most, filled completely, ...
+        final FeaturesHolderCache<String> cache = new FeaturesHolderCache<>(2);
+        final FeaturesHolder first = cache.get("first", FeaturesHolderCacheExpectations::createFeaturesHolder);
+        cache.get("second", FeaturesHolderCacheExpectations::createFeaturesHolder);
+
+        // ... when we reference the first entry, and add the third one, ...
+        cache.get("first", FeaturesHolderCacheExpectations::createFeaturesHolder);
+        cache.get("third", FeaturesHolderCacheExpectations::createFeaturesHolder);
+
+        // ... then one of the entries not referenced should be evicted, and the first one retained, ...
+        assertEquals("Cache size should be bounded.", 2, cache.size());
+        assertEquals("One entry should be evicted.", 1, cache.getEvictionCount());
+        assertSame("Recently referenced entry should be retained.", first,
+            cache.get("first", FeaturesHolderCacheExpectations::createFeaturesHolder));
+
+        // ... and the cache should stay bounded when we keep adding the entries.
+        for (int count = 0; count < 10; count++) {
+            cache.get("other" + count, FeaturesHolderCacheExpectations::createFeaturesHolder);
+        }
+        assertEquals("Cache size should be bounded.", 2, cache.size());
+        assertEquals("Each added entry should evict one.", 11, cache.getEvictionCount());
+    }
+
+    /**
+     * Verifies if the cache copies the key only when storing the entry.
+     */
+    @Test
+    public void shouldCopyKeyOnlyWhenStoringEntry() {
+
+        // Given cache copying its keys, ...
+        final List<String> copied = new ArrayList<>();
+        final FeaturesHolderCache<String> cache = new FeaturesHolderCache<>(2, key -> {
+            copied.add(key);
+            return key;
+        });
+
+        // ... when we request the same key many times, ...
+        for (int count = 0; count < 3; count++) {
+            cache.get("first", FeaturesHolderCacheExpectations::createFeaturesHolder);
+        }
+
+        // ... then the key should be copied once, on cache miss.
+        assertEquals("Key should be copied on cache miss only.", Collections.singletonList("first"), copied);
+    }
+
+    /**
+     * Verifies if the cache counts hits and misses.
+     */
+    @Test
+    public void shouldCountHitsAndMisses() {
+
+        // Given empty cache, ...
+        final FeaturesHolderCache<String> cache = new FeaturesHolderCache<>(FeaturesHolderCache.DEFAULT_MAXIMUM_SIZE);
+
+        // ... when we request the same key twice, and other key once, ...
+        final FeaturesHolder first = cache.get("first", FeaturesHolderCacheExpectations::createFeaturesHolder);
+        final FeaturesHolder again = cache.get("first", FeaturesHolderCacheExpectations::createFeaturesHolder);
+        final FeaturesHolder second = cache.get("second", FeaturesHolderCacheExpectations::createFeaturesHolder);
+
+        // ... then there should be one hit, and two misses.
+        assertSame("Cached holder should be returned on hit.", first, again);
+        assertNotSame("Each key should have its own holder.", first, second);
+        assertEquals("There should be one hit.", 1, cache.getHitCount());
+        assertEquals("There should be two misses.", 2, cache.getMissCount());
+    }
+
+}
@@ -2,8 +2,11 @@ package pl.ais.commons.application.feature.spring;
 
 import org.junit.Test;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,14 +21,26 @@ import pl.ais.commons.application.feature.internal.FeatureC;
 import pl.ais.commons.application.feature.internal.OperationalFeaturesHolder;
 import pl.ais.commons.application.feature.spring.internal.ExampleController;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.security.Principal;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -58,6 +73,16 @@ public class FeaturesHolderMethodArgumentResolverExpectations {
                                              .get(ExampleController.FEATURES_HOLDER);
     }
 
+    /**
+     * @param bytes serialized object
+     * @return deserialized object
+     */
+    private static Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objectStream.readObject();
+        }
+    }
+
     /**
      * @param context application context to initialize
      */
@@ -107,6 +132,18 @@ public class FeaturesHolderMethodArgumentResolverExpectations {
         return argumentResolver;
     }
 
+    /**
+     * @param object object to serialize
+     * @return serialized object
+     */
+    private static byte[] serialize(final Object object) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(output)) {
+            objectStream.writeObject(object);
+        }
+        return output.toByteArray();
+    }
+
     /**
      * Verifies if properly configured application (based on Spring Framework), will allow resolving handler parameters
      * of custom {@link FeaturesHolder} type.
@@ -187,4 +224,262 @@ public class FeaturesHolderMethodArgumentResolverExpectations {
             }
         }
     }
+
+    /**
+     * Verifies if deserialized {@link FeaturesHolder} is bound to the handlers of the application context, as long
+     * as the context isn't closed.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldBindDeserializedFeaturesHolderToContextHandlers() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application with support for resolving parameters of default FeaturesHolder type, ...
+            initializeApplicationContext(context);
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            final FeaturesHolder featuresHolder = argumentResolver.resolveFeaturesHolder(
+                (Authentication) createPrincipal(ordinaryUser));
+            final byte[] serialized = serialize(featuresHolder);
+
+            // ... when we deserialize the holder resolved by the application, ...
+            final FeaturesHolder deserialized = (FeaturesHolder) deserialize(serialized);
+
+            // ... then it should be the same as the resolved one, ...
+            assertSame("Deserialized holder should be interned.", featuresHolder, deserialized);
+            assertSame("Feature A should be bound to the bean.", context.getBean(FeatureA.class),
+                deserialized.getFeature(FeatureA.class));
+
+            // ... and it shouldn't be deserialized after the context is closed.
+            argumentResolver.onApplicationEvent(new ContextClosedEvent(context));
+            try {
+                deserialize(serialized);
+                fail("Holder shouldn't be deserialized without the binder.");
+            } catch (final InvalidObjectException exception) {
+                // Expected.
+            }
+        }
+    }
+
+    /**
+     * Verifies if authority reachable through the role hierarchy grants its features.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldGrantFeaturesOfReachableAuthorities() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application with support for resolving parameters of default FeaturesHolder type, ...
+            initializeApplicationContext(context);
+
+            // ... using role hierarchy, in which super user inherits the authorities of admin and ordinary users, ...
+            final RoleHierarchyImpl roleHierarchy = new RoleHierarchyImpl();
+            roleHierarchy.setHierarchy("SuperUser > AdminUser\nSuperUser > OrdinaryUser");
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            argumentResolver.setRoleHierarchy(roleHierarchy);
+
+            final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ExampleController())
+                                                   .setCustomArgumentResolvers(argumentResolver).build();
+
+            // When we perform the request as super user, absent from the features map, ...
+            final FeaturesHolder featuresHolder = extractFeaturesHolder(mockMvc.perform(
+                get("/default.html").principal(createPrincipal(new SimpleGrantedAuthority("SuperUser")))));
+
+            // ... then FeaturesHolder should have all the features of inherited authorities.
+            assertTrue("FeaturesHolder should have feature A.", featuresHolder.hasFeature(FeatureA.class));
+            assertTrue("FeaturesHolder should have feature B.", featuresHolder.hasFeature(FeatureB.class));
+            assertTrue("FeaturesHolder should have feature C.", featuresHolder.hasFeature(FeatureC.class));
+        }
+    }
+
+    /**
+     * Verifies if the handlers of prototype features are obtained from the application context each time they are
+     * requested.
+     */
+    @Test
+    public void shouldObtainPrototypeHandlerEachTime() {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application having prototype handler of feature A, ...
+            context.registerPrototype("featureA", DefaultFeatureA.class);
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+
+            // ... when we request the handler of feature A twice, ...
+            final FeaturesHolder featuresHolder = argumentResolver.resolveFeaturesHolder(
+                (Authentication) createPrincipal(ordinaryUser));
+            final FeatureA first = featuresHolder.getFeature(FeatureA.class);
+            final FeatureA second = featuresHolder.getFeature(FeatureA.class);
+
+            // ... then each request should obtain new handler.
+            assertNotSame("Prototype handler shouldn't be shared.", first, second);
+        }
+    }
+
+    /**
+     * Verifies if the tenant specific mapping exceeding the maximum number of tenants is rejected.
+     */
+    @Test
+    public void shouldRejectTenantExceedingMaximumTenantCount() {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application allowing single tenant specific mapping, and having it defined already, ...
+            initializeApplicationContext(context);
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            argumentResolver.setMaximumTenantCount(1);
+            argumentResolver.setTenantFeaturesMap("first", featuresMap());
+            final long version = argumentResolver.getFeaturesMapVersion();
+
+            // ... when we define the mapping of another tenant, ...
+            try {
+                argumentResolver.setTenantFeaturesMap("second", featuresMap());
+                fail("Mapping of the second tenant should be rejected.");
+            } catch (final IllegalStateException exception) {
+
+                // ... then it should be rejected, keeping current mapping, ...
+                assertEquals("Mapping shouldn't change.", version, argumentResolver.getFeaturesMapVersion());
+            }
+
+            // ... while the mapping of already defined tenant still can be replaced.
+            assertTrue("Mapping of the first tenant should be replaced.",
+                argumentResolver.setTenantFeaturesMap("first", featuresMap()) > version);
+        }
+    }
+
+    /**
+     * Verifies if reloading the features map affects subsequently resolved {@link FeaturesHolder} instances.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldResolveFeaturesHolderAgainstReloadedFeaturesMap() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application with support for resolving parameters of default FeaturesHolder type, ...
+            initializeApplicationContext(context);
+
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ExampleController())
+                                                   .setCustomArgumentResolvers(argumentResolver).build();
+            final FeaturesHolder before = extractFeaturesHolder(
+                mockMvc.perform(get("/default.html").principal(createPrincipal(ordinaryUser))));
+            final long version = argumentResolver.getFeaturesMapVersion();
+
+            // When we reload the features map, revoking feature C from ordinary user, ...
+            final long reloaded = argumentResolver.reloadFeaturesMap(
+                () -> Collections.singletonMap(ordinaryUser, Collections.singleton(FeatureA.class)));
+            final FeaturesHolder after = extractFeaturesHolder(
+                mockMvc.perform(get("/default.html").principal(createPrincipal(ordinaryUser))));
+
+            // ... then new version of the mapping should be published, ...
+            assertTrue("Features map version should grow.", reloaded > version);
+            assertEquals("Reloaded version should be current.", reloaded, argumentResolver.getFeaturesMapVersion());
+
+            // ... and FeaturesHolder should be resolved using reloaded mapping.
+            assertTrue("FeaturesHolder should have feature C before reload.", before.hasFeature(FeatureC.class));
+            assertFalse("FeaturesHolder shouldn't have feature C after reload.", after.hasFeature(FeatureC.class));
+            assertTrue("FeaturesHolder should have feature A after reload.", after.hasFeature(FeatureA.class));
+        }
+    }
+
+    /**
+     * Verifies if features granted to the authority depend on the tenant, and if equal holders are shared between
+     * tenants.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldResolveFeaturesHolderUsingTenantFeaturesMap() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application with support for resolving parameters of default FeaturesHolder type, ...
+            initializeApplicationContext(context);
+
+            // ... recognizing the tenant by principal name, and granting only feature A to ordinary users
+            // of the first tenant, and the same features as the default mapping to the second tenant, ...
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            argumentResolver.setTenantKeyExtractor(Authentication::getName);
+            argumentResolver.setTenantFeaturesMap("first",
+                Collections.singletonMap(ordinaryUser, Collections.singleton(FeatureA.class)));
+            argumentResolver.setTenantFeaturesMap("second", featuresMap());
+
+            final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ExampleController())
+                                                   .setCustomArgumentResolvers(argumentResolver).build();
+
+            // When we perform the requests as ordinary users of both tenants, and not recognized tenant, ...
+            final FeaturesHolder first = extractFeaturesHolder(mockMvc.perform(get("/default.html").principal(
+                new UsernamePasswordAuthenticationToken("first", "credentials", Arrays.asList(ordinaryUser)))));
+            final FeaturesHolder second = extractFeaturesHolder(mockMvc.perform(get("/default.html").principal(
+                new UsernamePasswordAuthenticationToken("second", "credentials", Arrays.asList(ordinaryUser)))));
+            final FeaturesHolder other = extractFeaturesHolder(
+                mockMvc.perform(get("/default.html").principal(createPrincipal(ordinaryUser))));
+
+            // ... then the features should be determined by the mapping of the tenant, ...
+            assertFalse("First tenant shouldn't have feature C.", first.hasFeature(FeatureC.class));
+            assertTrue("Second tenant should have feature C.", second.hasFeature(FeatureC.class));
+
+            // ... and equal holders should be shared between tenants.
+            assertSame("FeaturesHolder should be shared.", second, other);
+        }
+    }
+
+    /**
+     * Verifies if the tenants having no specific mapping share the cached holders of the default mapping.
+     */
+    @Test
+    public void shouldShareCachedFeaturesHolderBetweenUnmappedTenants() {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application recognizing the tenant by principal name, and having no tenant specific mapping, ...
+            initializeApplicationContext(context);
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            argumentResolver.setTenantKeyExtractor(Authentication::getName);
+
+            // ... when we resolve the holders for the users of different tenants, having the same authorities, ...
+            final FeaturesHolder alice = argumentResolver.resolveFeaturesHolder(
+                new UsernamePasswordAuthenticationToken("alice", "credentials", Arrays.asList(ordinaryUser)));
+            final FeaturesHolder bob = argumentResolver.resolveFeaturesHolder(
+                new UsernamePasswordAuthenticationToken("bob", "credentials", Arrays.asList(ordinaryUser)));
+
+            // ... then the same cache entry should be used for both of them.
+            assertSame("FeaturesHolder should be shared.", alice, bob);
+            assertEquals("Second resolution should hit the cache.", 1,
+                argumentResolver.getFeaturesHolderCache().getHitCount());
+            assertEquals("Single holder should be cached.", 1, argumentResolver.getFeaturesHolderCache().size());
+        }
+    }
+
+    /**
+     * Verifies if {@link FeaturesHolder} resolved for given set of granted authorities is shared between requests.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldShareFeaturesHolderResolvedForTheSameAuthorities() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application with support for resolving parameters of default FeaturesHolder type, ...
+            initializeApplicationContext(context);
+
+            final FeaturesHolderMethodArgumentResolver argumentResolver = methodArgumentResolver(context);
+            final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ExampleController())
+                                                   .setCustomArgumentResolvers(argumentResolver).build();
+
+            // When we perform the requests as different users, having the same set of authorities granted, ...
+            final FeaturesHolder first = extractFeaturesHolder(
+                mockMvc.perform(get("/default.html").principal(createPrincipal(ordinaryUser, adminUser))));
+            final FeaturesHolder second = extractFeaturesHolder(
+                mockMvc.perform(get("/default.html").principal(createPrincipal(adminUser, ordinaryUser))));
+
+            // ... then the same FeaturesHolder should be used for handling both of them.
+            assertSame("FeaturesHolder should be shared.", first, second);
+            assertEquals("Second request should hit the cache.", 1, argumentResolver.getFeaturesHolderCache().getHitCount());
+        }
+    }
+
 }
@@ -0,0 +1,128 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import pl.ais.commons.application.feature.FeaturesHolder;
+import pl.ais.commons.application.feature.internal.DefaultFeatureA;
+import pl.ais.commons.application.feature.internal.FeatureA;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies {@link ReactiveFeaturesHolderMethodArgumentResolver} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class ReactiveFeaturesHolderMethodArgumentResolverExpectations {
+
+    private final GrantedAuthority ordinaryUser = new SimpleGrantedAuthority("OrdinaryUser");
+
+    private Authentication authentication() {
+        return new UsernamePasswordAuthenticationToken("principal", "credentials",
+            Collections.singletonList(ordinaryUser));
+    }
+
+    private ServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/default.html")).mutate()
+                                    .principal(Mono.just(authentication()))
+                                    .build();
+    }
+
+    private ReactiveFeaturesHolderMethodArgumentResolver resolver(final StaticApplicationContext context) {
+        context.registerSingleton("featureA", DefaultFeatureA.class);
+        final FeaturesHolderMethodArgumentResolver delegate = new FeaturesHolderMethodArgumentResolver();
+        delegate.setApplicationContext(context);
+        delegate.setFeaturesMap(Collections.singletonMap(ordinaryUser, Set.of(FeatureA.class)));
+        return new ReactiveFeaturesHolderMethodArgumentResolver(delegate);
+    }
+
+    /**
+     * Verifies if nothing is resolved, when there is no authentication.
+     */
+    @Test
+    public void shouldNotResolveFeaturesHolderWithoutAuthentication() {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given reactive resolver, ...
+            final ReactiveFeaturesHolderMethodArgumentResolver resolver = resolver(context);
+
+            // ... when we resolve the holder for the exchange without principal and security context, ...
+            final Object holder = resolver.resolveArgument(null, null,
+                MockServerWebExchange.from(MockServerHttpRequest.get("/default.html"))).block();
+
+            // ... then nothing should be resolved.
+            assertNull("Holder shouldn't be resolved without authentication.", holder);
+        }
+    }
+
+    /**
+     * Verifies if the authentication is taken from reactive security context.
+     */
+    @Test
+    public void shouldResolveFeaturesHolderForAuthenticationOfSecurityContext() {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given reactive resolver, ...
+            final ReactiveFeaturesHolderMethodArgumentResolver resolver = resolver(context);
+
+            // ... when we resolve the holder for the exchange without principal, within the security context of
+            // ordinary user, ...
+            final Object holder = resolver.resolveArgument(null, null,
+                                              MockServerWebExchange.from(MockServerHttpRequest.get("/default.html")))
+                                          .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                                              authentication()))
+                                          .block();
+
+            // ... then the holder should own feature A.
+            assertTrue("Feature A should be granted.", ((FeaturesHolder) holder).hasFeature(FeatureA.class));
+        }
+    }
+
+    /**
+     * Verifies if the holder is resolved off the calling thread on cache miss, and on the calling thread on cache hit.
+     */
+    @Test
+    public void shouldResolveFeaturesHolderOffCallingThreadOnCacheMiss() {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given reactive resolver, delegating to the resolver granting feature A to ordinary users, ...
+            final ReactiveFeaturesHolderMethodArgumentResolver resolver = resolver(context);
+
+            // ... when we resolve the holder for ordinary user twice, ...
+            final String caller = Thread.currentThread().getName();
+            final Object[] first = resolver.resolveArgument(null, null, exchange())
+                                           .map(holder -> new Object[]{holder, Thread.currentThread().getName()})
+                                           .block();
+            final Object[] second = resolver.resolveArgument(null, null, exchange())
+                                            .map(holder -> new Object[]{holder, Thread.currentThread().getName()})
+                                            .block();
+
+            // ... then the holder should own feature A, ...
+            assertTrue("Feature A should be granted.", ((FeaturesHolder) first[0]).hasFeature(FeatureA.class));
+
+            // ... be resolved off the calling thread first, and taken from the cache on the calling thread next.
+            assertTrue("Cache miss should be handled by bounded elastic scheduler.",
+                ((String) first[1]).startsWith("boundedElastic"));
+            assertSame("Cached holder should be returned.", first[0], second[0]);
+            assertEquals("Cache hit should be handled on the calling thread.", caller, second[1]);
+        }
+    }
+
+}
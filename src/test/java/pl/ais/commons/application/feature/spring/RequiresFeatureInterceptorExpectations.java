@@ -0,0 +1,136 @@
+package pl.ais.commons.application.feature.spring;
+
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pl.ais.commons.application.feature.RequiresFeature;
+import pl.ais.commons.application.feature.internal.DefaultFeatureA;
+import pl.ais.commons.application.feature.internal.FeatureA;
+import pl.ais.commons.application.feature.internal.FeatureB;
+import pl.ais.commons.application.feature.spring.internal.ExampleController;
+import pl.ais.commons.application.feature.spring.internal.RestrictedExampleController;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies {@link RequiresFeatureInterceptor} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class RequiresFeatureInterceptorExpectations {
+
+    private final GrantedAuthority adminUser = new SimpleGrantedAuthority("AdminUser");
+
+    private final GrantedAuthority ordinaryUser = new SimpleGrantedAuthority("OrdinaryUser");
+
+    /**
+     * @return created principal having given granted authority
+     */
+    private static Principal createPrincipal(final GrantedAuthority authority) {
+        return new UsernamePasswordAuthenticationToken("principal", "credentials",
+            Collections.singletonList(authority));
+    }
+
+    /**
+     * @param context     application context
+     * @param controllers the controllers
+     * @return application with {@link RequiresFeatureInterceptor} installed
+     */
+    private MockMvc mockMvc(final StaticApplicationContext context, final Object... controllers) {
+        final Map<GrantedAuthority, Set<Class<?>>> featuresMap = new LinkedHashMap<>();
+        featuresMap.put(adminUser, Set.of(FeatureA.class, FeatureB.class));
+        featuresMap.put(ordinaryUser, Set.of(FeatureA.class));
+
+        final FeaturesHolderMethodArgumentResolver resolver = new FeaturesHolderMethodArgumentResolver();
+        resolver.setApplicationContext(context);
+        resolver.setFeaturesMap(featuresMap);
+        return MockMvcBuilders.standaloneSetup(controllers).setCustomArgumentResolvers(resolver)
+                              .addInterceptors(new RequiresFeatureInterceptor(resolver)).build();
+    }
+
+    /**
+     * Verifies if request to the handler method annotated with {@link RequiresFeature} is allowed, when the user
+     * owns required features.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldAllowRequestWhenRequiredFeaturesAreOwned() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application protecting some handler methods with required features, ...
+            context.registerSingleton("featureA", DefaultFeatureA.class);
+            final MockMvc mockMvc = mockMvc(context, new ExampleController());
+
+            // When we perform the request as user owning required features, then it should succeed.
+            mockMvc.perform(get("/restricted.html").principal(createPrincipal(adminUser)))
+                   .andExpect(status().isOk());
+        }
+    }
+
+    /**
+     * Verifies if the requirements of inherited handler method are determined by the controller serving it.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldDetermineRequirementsByServingController() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application having two controllers serving the same handler method, and only one of them
+            // requiring some feature, ...
+            context.registerSingleton("featureA", DefaultFeatureA.class);
+            final MockMvc mockMvc = mockMvc(context, new ExampleController(), new RestrictedExampleController());
+
+            // When we perform the requests handled by both controllers as user missing required feature, then
+            // the request handled by not restricted controller should succeed, ...
+            mockMvc.perform(get("/default.html").principal(createPrincipal(ordinaryUser)))
+                   .andExpect(status().isOk());
+
+            // ... and the request handled by restricted controller should be rejected.
+            mockMvc.perform(get("/restricted/default.html").principal(createPrincipal(ordinaryUser)))
+                   .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Verifies if request to the handler method annotated with {@link RequiresFeature} is rejected, when the user
+     * doesn't own required features.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldRejectRequestWhenRequiredFeatureIsMissing() throws Exception {
+        try (final StaticApplicationContext context = new StaticApplicationContext()) {
+
+            // Given application protecting some handler methods with required features, ...
+            context.registerSingleton("featureA", DefaultFeatureA.class);
+            final MockMvc mockMvc = mockMvc(context, new ExampleController());
+
+            // When we perform the request as user missing required feature, then it should be rejected, ...
+            mockMvc.perform(get("/restricted.html").principal(createPrincipal(ordinaryUser)))
+                   .andExpect(status().isForbidden());
+
+            // ... while not annotated handler methods should remain accessible.
+            mockMvc.perform(get("/default.html").principal(createPrincipal(ordinaryUser)))
+                   .andExpect(status().isOk());
+        }
+    }
+
+}
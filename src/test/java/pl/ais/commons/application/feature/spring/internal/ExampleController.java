@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import pl.ais.commons.application.feature.FeaturesHolder;
+import pl.ais.commons.application.feature.RequiresFeature;
+import pl.ais.commons.application.feature.internal.FeatureB;
 import pl.ais.commons.application.feature.internal.OperationalFeaturesHolder;
 
 /**
@@ -46,4 +48,17 @@ public class ExampleController {
         model.addAttribute(FEATURES_HOLDER, featuresHolder);
     }
 
+    /**
+     * Example of method requiring some feature.
+     *
+     * @param model the Model
+     * @param featuresHolder features holder
+     */
+    @SuppressWarnings("static-method")
+    @RequiresFeature(FeatureB.class)
+    @RequestMapping(method = RequestMethod.GET, value = "/restricted.html")
+    public void doHandleRestricted(final Model model, final FeaturesHolder featuresHolder) {
+        model.addAttribute(FEATURES_HOLDER, featuresHolder);
+    }
+
 }
@@ -0,0 +1,19 @@
+package pl.ais.commons.application.feature.spring.internal;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import pl.ais.commons.application.feature.RequiresFeature;
+import pl.ais.commons.application.feature.internal.FeatureB;
+
+/**
+ * Example controller, inheriting the handler methods, and requiring some feature for all of them.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+@Controller
+@RequestMapping("/restricted")
+@RequiresFeature(FeatureB.class)
+public class RestrictedExampleController extends ExampleController {
+}
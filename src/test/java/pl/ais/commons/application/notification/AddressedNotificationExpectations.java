@@ -0,0 +1,183 @@
+package pl.ais.commons.application.notification;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pl.ais.commons.application.notification.Notification.aNotification;
+import static pl.ais.commons.application.notification.component.Text.text;
+
+/**
+ * Verifies {@link AddressedNotification} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class AddressedNotificationExpectations {
+
+    private static AddressedNotification.Builder addressedNotification() {
+        return aNotification().withSubject("Subject", "UTF-8").withContent(text("Content")).addressed();
+    }
+
+    private static Function<String[], String[]> suffixing(final String suffix) {
+        return recipients -> Arrays.stream(recipients).map(recipient -> recipient + ' ' + suffix)
+                                   .toArray(String[]::new);
+    }
+
+    private static String[] upperCase(final String[] recipients) {
+        final String[] result = new String[recipients.length];
+        for (int index = 0; index < recipients.length; index++) {
+            result[index] = recipients[index].toUpperCase();
+        }
+        return result;
+    }
+
+    /**
+     * Verifies if the conversion of the recipients is cached, and each call gets its own copy of the result.
+     */
+    @Test
+    public void shouldCacheConvertedRecipients() {
+
+        // Given addressed notification, ...
+        final AddressedNotification notification = addressedNotification().to("first@example.com")
+                                                                           .bcc("second@example.com").get();
+
+        // ... when we convert its recipients many times, modifying the result, ...
+        final AtomicInteger conversions = new AtomicInteger();
+        final Function<String[], String[]> converter = recipients -> {
+            conversions.incrementAndGet();
+            return upperCase(recipients);
+        };
+        final String[] converted = notification.getRecipients(AddressType.BCC, converter);
+        converted[0] = null;
+
+        // ... then conversion result should be cached, and not affected by the modification.
+        assertArrayEquals("Recipients should be converted.", new String[] {"SECOND@EXAMPLE.COM"},
+            notification.getRecipients(AddressType.BCC, converter));
+        assertEquals("Conversion result should be cached.", 1, conversions.get());
+    }
+
+    /**
+     * Verifies if the results of the converters of the same class aren't shared.
+     */
+    @Test
+    public void shouldNotShareConversionBetweenConverters() {
+
+        // Given addressed notification, ...
+        final AddressedNotification notification = addressedNotification().bcc("recipient@example.com").get();
+
+        // ... when we convert its recipients using converters of the same class, ...
+        final String[] first = notification.getRecipients(AddressType.BCC, suffixing("first"));
+        final String[] second = notification.getRecipients(AddressType.BCC, suffixing("second"));
+
+        // ... then each of them should get its own result.
+        assertArrayEquals("First converter result should be returned.", new String[] {"recipient@example.com first"},
+            first);
+        assertArrayEquals("Second converter result should be returned.",
+            new String[] {"recipient@example.com second"}, second);
+    }
+
+    /**
+     * Verifies if the recipients are grouped by the address type.
+     */
+    @Test
+    public void shouldGroupRecipientsByAddressType() {
+
+        // Given the builder, ...
+        final AddressedNotification.Builder builder = addressedNotification();
+
+        // ... when we add the recipients of various types, ...
+        final AddressedNotification notification = builder.bcc("first@example.com", "second@example.com")
+                                                          .to("third@example.com")
+                                                          .bcc("fourth@example.com")
+                                                          .get();
+
+        // ... then they should be available by the type, in the order of adding.
+        assertEquals("Primary recipients should be available.", 1,
+            notification.getRecipients(AddressType.PRIMARY).count());
+        assertEquals("BCC recipients should be available in the order of adding.",
+            Arrays.asList("first@example.com", "second@example.com", "fourth@example.com"),
+            notification.getRecipients(AddressType.BCC).collect(toList()));
+        assertEquals("There should be no CC recipients.", 0, notification.getRecipients(AddressType.CC).count());
+    }
+
+    /**
+     * Verifies if the recipients of various types are kept in the order of adding, also by serialized notification.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldKeepRecipientsInOrderOfAdding() throws IOException, ClassNotFoundException {
+
+        // Given addressed notification, having the recipients of various types added alternately, ...
+        final AddressedNotification notification = addressedNotification().bcc("first@example.com")
+                                                                           .to("second@example.com")
+                                                                           .bcc("third@example.com")
+                                                                           .get();
+
+        // ... when we serialize and deserialize it, ...
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(output)) {
+            objectStream.writeObject(notification);
+        }
+        final AddressedNotification deserialized;
+        try (ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            deserialized = (AddressedNotification) objectStream.readObject();
+        }
+
+        // ... then both notifications should list the recipients in the order of adding.
+        final String recipients = "first@example.com (BCC), second@example.com, third@example.com (BCC)";
+        assertTrue("Recipients should be listed in the order of adding.", notification.toString().endsWith(recipients));
+        assertTrue("Deserialized recipients should be listed in the order of adding.",
+            deserialized.toString().endsWith(recipients));
+    }
+
+    /**
+     * Verifies if duplicated recipients are rejected.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectDuplicatedRecipients() {
+        addressedNotification().cc("first@example.com", "second@example.com", "first@example.com");
+    }
+
+    /**
+     * Verifies if the notification survives the serialization.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldSurviveSerialization() throws IOException, ClassNotFoundException {
+
+        // Given addressed notification, ...
+        final AddressedNotification notification = addressedNotification().to("first@example.com")
+                                                                           .cc("second@example.com").get();
+
+        // ... when we serialize and deserialize it, ...
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(output)) {
+            objectStream.writeObject(notification);
+        }
+        final AddressedNotification deserialized;
+        try (ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            deserialized = (AddressedNotification) objectStream.readObject();
+        }
+
+        // ... then deserialized notification should be equal to the original one, and have grouped recipients.
+        assertEquals("Notification should be preserved.", notification, deserialized);
+        assertEquals("CC recipients should be available.", 1, deserialized.getRecipients(AddressType.CC).count());
+    }
+
+}
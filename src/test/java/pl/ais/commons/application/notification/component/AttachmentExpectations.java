@@ -0,0 +1,101 @@
+package pl.ais.commons.application.notification.component;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static pl.ais.commons.application.notification.component.Attachment.attachment;
+
+/**
+ * Verifies {@link Attachment} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class AttachmentExpectations {
+
+    /**
+     * Temporary folder holding attached files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] contentOf(final Attachment attachment) throws IOException {
+        try (InputStream input = attachment.getInputStream()) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static byte[] serialize(final Object object) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(output)) {
+            objectStream.writeObject(object);
+        }
+        return output.toByteArray();
+    }
+
+    private static Attachment deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Attachment) objectStream.readObject();
+        }
+    }
+
+    /**
+     * Verifies if the attachment backed by the buffer survives the serialization.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldSerializeContentOfBufferBackedAttachment() throws IOException, ClassNotFoundException {
+
+        // Given the attachment backed by the buffer, ...
+        final byte[] content = {1, 2, 3, 4, 5};
+        final Attachment attachment = attachment("application/octet-stream", "content.bin", ByteBuffer.wrap(content));
+
+        // ... when we serialize and deserialize it, ...
+        final Attachment deserialized = deserialize(serialize(attachment));
+
+        // ... then deserialized attachment should have the same content.
+        assertArrayEquals("Content should be preserved.", content, contentOf(deserialized));
+        assertArrayEquals("Original content should be readable many times.", content, contentOf(attachment));
+    }
+
+    /**
+     * Verifies if serialized form of the attachment backed by the file refers the file instead of holding
+     * its content.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldSerializeReferenceToAttachedFile() throws IOException, ClassNotFoundException {
+
+        // Given the attachment backed by large file, ...
+        final byte[] content = new byte[1 << 20];
+        content[content.length - 1] = 1;
+        final Path file = folder.newFile("report.pdf").toPath();
+        Files.write(file, content);
+        final Attachment attachment = attachment("application/pdf", "report.pdf", file);
+
+        // ... when we serialize it, ...
+        final byte[] serialized = serialize(attachment);
+
+        // ... then serialized form should refer the file, and be sufficient to read its content.
+        assertTrue("Serialized form shouldn't hold the content.", serialized.length < 4096);
+        assertArrayEquals("Content should be read from the file.", content, contentOf(deserialize(serialized)));
+    }
+
+}
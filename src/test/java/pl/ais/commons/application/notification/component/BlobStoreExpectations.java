@@ -0,0 +1,130 @@
+package pl.ais.commons.application.notification.component;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.ais.commons.application.notification.NotificationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies {@link BlobStore} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class BlobStoreExpectations {
+
+    /**
+     * Temporary folder holding the store.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies if the content is cached independently of the array provided by the caller.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldNotBeAffectedByModificationOfStoredArray() throws IOException {
+
+        // Given the store holding the content, ...
+        final BlobStore store = BlobStore.open(folder.newFolder().toPath());
+        final byte[] content = {1, 2, 3};
+        final String hash = store.put(content);
+
+        // ... when the caller modifies stored array, ...
+        content[0] = 0;
+
+        // ... then stored content shouldn't change.
+        try (InputStream input = store.openStream(hash)) {
+            assertArrayEquals("Stored content shouldn't change.", new byte[] {1, 2, 3}, input.readAllBytes());
+        }
+    }
+
+    /**
+     * Verifies if the temporary file is removed, when reading the content fails.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldRemoveTemporaryFileWhenReadingContentFails() throws IOException {
+
+        // Given the store, ...
+        final Path directory = folder.newFolder().toPath();
+        final BlobStore store = BlobStore.open(directory);
+
+        // ... when we store the content read from failing stream, ...
+        try {
+            store.put(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Connection reset.");
+                }
+            });
+            fail("Failure should be reported.");
+        } catch (final NotificationException exception) {
+
+            // ... then nothing should be left in the store.
+            try (Stream<?> files = Files.walk(directory).filter(Files::isRegularFile)) {
+                assertEquals("Temporary file should be removed.", 0, files.count());
+            }
+        }
+    }
+
+    /**
+     * Verifies if the same content is stored once, and attachments refer it by the hash.
+     *
+     * @throws IOException            in case of I/O problems
+     * @throws ClassNotFoundException if deserialized class cannot be found
+     */
+    @Test
+    public void shouldStoreRepeatedContentOnce() throws IOException, ClassNotFoundException {
+
+        // Given the store, ...
+        final BlobStore store = BlobStore.open(folder.newFolder().toPath());
+
+        // ... when we attach the same content many times, ...
+        final byte[] content = new byte[1 << 16];
+        content[0] = 1;
+        final Attachment first = store.attachment("application/pdf", "first.pdf", content);
+        final Attachment second = store.attachment("application/pdf", "second.pdf", content.clone());
+        final String hash = store.put(new ByteArrayInputStream(content));
+
+        // ... then the content should be stored once, ...
+        try (Stream<?> files = Files.walk(store.getDirectory()).filter(Files::isRegularFile)) {
+            assertEquals("Content should be stored once.", 1, files.count());
+        }
+        assertTrue("Content should be found by its hash.", store.contains(hash));
+
+        // ... and serialized attachments should refer it.
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(output)) {
+            objectStream.writeObject(first);
+            objectStream.writeObject(second);
+        }
+        assertTrue("Serialized attachments shouldn't hold the content.", output.size() < 4096);
+        try (ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            objectStream.readObject();
+            final Attachment deserialized = (Attachment) objectStream.readObject();
+            try (InputStream input = deserialized.getInputStream()) {
+                assertArrayEquals("Content should be resolved from the store.", content, input.readAllBytes());
+            }
+        }
+    }
+
+}
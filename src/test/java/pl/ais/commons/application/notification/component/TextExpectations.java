@@ -0,0 +1,62 @@
+package pl.ais.commons.application.notification.component;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static pl.ais.commons.application.notification.component.Text.html;
+import static pl.ais.commons.application.notification.component.Text.text;
+
+/**
+ * Verifies {@link Text} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class TextExpectations {
+
+    /**
+     * Verifies if the content is encoded using the charset of the text, and repeatable reads give the same result.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldEncodeContentUsingCharset() throws IOException {
+
+        // Given the text holding non-ASCII characters, ...
+        final String content = "<p>Za\u017c\u00f3\u0142\u0107 g\u0119\u015bl\u0105 ja\u017a\u0144</p>";
+        final Text text = html(content, "UTF-8");
+
+        // ... when we read its content many times, ...
+        final byte[] first;
+        final byte[] second;
+        try (InputStream input = text.getInputStream()) {
+            first = input.readAllBytes();
+        }
+        try (InputStream input = text.getInputStream()) {
+            second = input.readAllBytes();
+        }
+
+        // ... then it should be encoded using the charset, and encoded length should be exact.
+        final byte[] expected = content.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals("Content should be encoded using the charset.", expected, first);
+        assertArrayEquals("Repeated reads should give the same content.", expected, second);
+        assertEquals("Encoded length should be exact.", expected.length, text.getEncodedLength());
+    }
+
+    /**
+     * Verifies if unsupported charset is reported when reading the content.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test(expected = UnsupportedEncodingException.class)
+    public void shouldReportUnsupportedCharset() throws IOException {
+        text("Content", "no-such-charset").getInputStream();
+    }
+
+}
@@ -0,0 +1,209 @@
+package pl.ais.commons.application.notification.mail;
+
+import org.junit.Test;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pl.ais.commons.application.notification.mail.MailSenderExpectations.notificationTo;
+
+/**
+ * Verifies {@link AsyncMailSender} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class AsyncMailSenderExpectations {
+
+    /**
+     * Verifies if the future returned for accepted notification is completed with the delivery outcome.
+     *
+     * @throws Exception in case of any problems
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Test
+    public void shouldCompleteFutureWithDeliveryOutcome() throws Exception {
+
+        // Given asynchronous mail sender, ...
+        try (AsyncMailSender sender = AsyncMailSender.builder((notification, listeners) -> { }).get()) {
+
+            // ... when we send the notification, ...
+            final AddressedNotification notification = notificationTo("recipient@example.com");
+            final DeliveryOutcome outcome = sender.send(notification).get(5, TimeUnit.SECONDS);
+
+            // ... then the future should be completed with the delivery outcome.
+            assertTrue("Notification should be delivered.", outcome.isDelivered());
+            assertEquals("Delivered count should be updated.", 1, sender.getDeliveredCount());
+        }
+    }
+
+    /**
+     * Verifies if the future is completed, even if the delivery ends with an error.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void shouldCompleteFutureWhenDeliveryEndsWithError() throws InterruptedException {
+
+        // Given asynchronous mail sender, which delegate ends with an error, ...
+        try (AsyncMailSender sender = AsyncMailSender.builder((notification, listeners) -> {
+            throw new AssertionError("Delivery failed.");
+        }).threadFactory(runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((source, throwable) -> { });
+            return thread;
+        }).get()) {
+
+            // ... when we send the notification, ...
+            final CompletableFuture<DeliveryOutcome> outcome = sender.send(notificationTo("recipient@example.com"));
+
+            // ... then the future should be completed exceptionally.
+            try {
+                outcome.get(5, TimeUnit.SECONDS);
+                fail("Error should be reported.");
+            } catch (final ExecutionException | TimeoutException exception) {
+                assertTrue("Error should be reported.", exception.getCause() instanceof AssertionError);
+            }
+            assertEquals("Failed count should be updated.", 1, sender.getFailedCount());
+        }
+    }
+
+    /**
+     * Verifies if the failure of the notification delivered by the caller thread isn't reported to the uncaught
+     * exception handler of the caller.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void shouldNotReportFailureToCallerThread() throws InterruptedException {
+
+        // Given asynchronous mail sender delivering overflowing notifications by the caller, having the queue full, ...
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Throwable> reported = new CopyOnWriteArrayList<>();
+        final Thread caller = Thread.currentThread();
+        final Thread.UncaughtExceptionHandler handler = caller.getUncaughtExceptionHandler();
+        caller.setUncaughtExceptionHandler((thread, throwable) -> reported.add(throwable));
+        try (AsyncMailSender sender = AsyncMailSender.builder((notification, listeners) -> {
+            if (Thread.currentThread() == caller) {
+                throw new NotificationException(new IllegalStateException("Delivery failed."));
+            }
+            try {
+                release.await();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }).workers(1).queueCapacity(1).overflowPolicy(AsyncMailSender.OverflowPolicy.CALLER_RUNS).get()) {
+            sender.accept(notificationTo("first@example.com"));
+            sender.accept(notificationTo("second@example.com"));
+
+            // ... when the caller fails to deliver overflowing notification, ...
+            sender.accept(notificationTo("third@example.com"));
+
+            // ... then the failure shouldn't be reported as the failure of the caller.
+            assertTrue("Failure shouldn't be reported to the caller.", reported.isEmpty());
+            assertEquals("Failed count should be updated.", 1, sender.getFailedCount());
+            release.countDown();
+        } finally {
+            caller.setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    /**
+     * Verifies if the notification overflowing the queue is rejected, when using {@link
+     * AsyncMailSender.OverflowPolicy#REJECT} policy, and if queued notifications are delivered on shutdown.
+     *
+     * @throws InterruptedException if the test is interrupted
+     * @throws ExecutionException   if the delivery fails unexpectedly
+     * @throws TimeoutException     if the delivery takes too long
+     */
+    @Test
+    public void shouldRejectOverflowingNotificationAndDrainQueueOnShutdown()
+        throws InterruptedException, ExecutionException, TimeoutException {
+
+        // Given asynchronous mail sender having single worker, blocked by the delivery in progress, ...
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final AsyncMailSender sender = AsyncMailSender.builder((notification, listeners) -> {
+            started.countDown();
+            try {
+                proceed.await();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }).workers(1).queueCapacity(1).overflowPolicy(AsyncMailSender.OverflowPolicy.REJECT).get();
+        final CompletableFuture<DeliveryOutcome> inProgress = sender.send(notificationTo("first@example.com"));
+        assertTrue("Delivery should start.", started.await(5, TimeUnit.SECONDS));
+
+        // ... and full queue, ...
+        final CompletableFuture<DeliveryOutcome> queued = sender.send(notificationTo("second@example.com"));
+        assertEquals("Notification should be queued.", 1, sender.getQueueDepth());
+
+        // ... when we send next notification, ...
+        final CompletableFuture<DeliveryOutcome> overflowing = sender.send(notificationTo("third@example.com"));
+
+        // ... then it should be rejected, ...
+        assertTrue("Notification should be rejected.", overflowing.isCompletedExceptionally());
+        try {
+            overflowing.join();
+            fail("Rejection should be reported.");
+        } catch (final RuntimeException exception) {
+            assertTrue("Rejection should be reported.", exception.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals("Rejected count should be updated.", 1, sender.getRejectedCount());
+
+        // ... and queued notifications should be delivered on shutdown.
+        proceed.countDown();
+        assertTrue("Queue should be drained.", sender.shutdown(Duration.ofSeconds(5)));
+        assertTrue("Notification should be delivered.", inProgress.get(1, TimeUnit.SECONDS).isDelivered());
+        assertTrue("Queued notification should be delivered.", queued.get(1, TimeUnit.SECONDS).isDelivered());
+    }
+
+    /**
+     * Verifies if rejected notification, and failed delivery of accepted notification are reported.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void shouldReportRejectionAndFailureOfAcceptedNotification() throws InterruptedException {
+
+        // Given asynchronous mail sender, which delegate fails to deliver the notifications, ...
+        final CompletableFuture<DeliveryOutcome> reported = new CompletableFuture<>();
+        final AsyncMailSender sender = AsyncMailSender.builder((notification, listeners) -> {
+            throw new NotificationException(new IllegalStateException("Delivery failed."));
+        }).failureHandler(reported::complete).get();
+
+        // ... when we accept the notification, ...
+        sender.accept(notificationTo("first@example.com"));
+
+        // ... then failed delivery should be reported to the failure handler, ...
+        try {
+            assertFalse("Failure should be reported.", reported.get(5, TimeUnit.SECONDS).isDelivered());
+        } catch (final ExecutionException | TimeoutException exception) {
+            fail("Failure should be reported.");
+        }
+
+        // ... and notification accepted after closing the sender should be rejected.
+        assertTrue("Sender should be closed.", sender.shutdown(Duration.ofSeconds(5)));
+        try {
+            sender.accept(notificationTo("second@example.com"));
+            fail("Rejection should be reported.");
+        } catch (final NotificationException exception) {
+            assertTrue("Rejection should be reported.", exception.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+}
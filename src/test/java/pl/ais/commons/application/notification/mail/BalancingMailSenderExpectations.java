@@ -0,0 +1,238 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.MessagingException;
+import org.junit.Test;
+import pl.ais.commons.application.notification.AddressType;
+import pl.ais.commons.application.notification.NotificationException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pl.ais.commons.application.notification.mail.MailSenderExpectations.notificationTo;
+
+/**
+ * Verifies {@link BalancingMailSender} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class BalancingMailSenderExpectations {
+
+    private static MailSender failingRelay(final AtomicInteger attempts) {
+        return (notification, listeners) -> {
+            attempts.incrementAndGet();
+            throw new NotificationException(new MessagingException("Couldn't connect to host", new ConnectException()));
+        };
+    }
+
+    private static MailSender timingOutRelay() {
+        return (notification, listeners) -> {
+            throw new NotificationException(
+                new MessagingException("Exception reading response", new SocketTimeoutException("Read timed out")));
+        };
+    }
+
+    /**
+     * Verifies if failing relay is ejected, and the notifications are sent using remaining ones.
+     */
+    @Test
+    public void shouldFailOverAndEjectFailingRelay() {
+
+        // Given balancing mail sender, having failing relay, ...
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger delivered = new AtomicInteger();
+        final BalancingMailSender sender = BalancingMailSender.builder()
+                                                              .relay("failing", failingRelay(failed), 10)
+                                                              .relay("healthy", (notification, listeners) ->
+                                                                  delivered.incrementAndGet())
+                                                              .ejection(2, Duration.ofMinutes(1))
+                                                              .get();
+
+        // ... when we send many notifications, ...
+        for (int index = 0; index < 5; index++) {
+            sender.accept(notificationTo("recipient@example.com"));
+        }
+
+        // ... then all of them should be delivered by healthy relay, and failing relay should be ejected.
+        assertEquals("All notifications should be delivered.", 5, delivered.get());
+        assertEquals("Failing relay should be ejected after reaching the threshold.", 2, failed.get());
+        assertEquals("Failing relay should be ejected.", CircuitBreaker.State.OPEN,
+            sender.getRelays().get(0).getCircuitBreaker().getState());
+    }
+
+    /**
+     * Verifies if the failure saying nothing about the relay doesn't reset consecutive failures of the relay.
+     */
+    @Test
+    public void shouldIgnoreFailureUnrelatedToRelay() {
+
+        // Given balancing mail sender, having the relay failing transiently, except for invalid notifications, ...
+        final AtomicInteger failed = new AtomicInteger();
+        final MailSender failing = failingRelay(failed);
+        final BalancingMailSender sender = BalancingMailSender.builder()
+                                                              .relay("failing", (notification, listeners) -> {
+                                                                  if (notification.getRecipients(AddressType.PRIMARY)
+                                                                                  .anyMatch("invalid"::equals)) {
+                                                                      throw new IllegalArgumentException(
+                                                                          "Invalid address.");
+                                                                  }
+                                                                  failing.accept(notification, listeners);
+                                                              })
+                                                              .ejection(2, Duration.ofMinutes(1))
+                                                              .get();
+
+        // ... when we send invalid notification between the failing ones, ...
+        for (final String recipient : new String[] {"recipient@example.com", "invalid", "recipient@example.com"}) {
+            try {
+                sender.accept(notificationTo(recipient));
+                fail("Failure should be reported.");
+            } catch (final RuntimeException exception) {
+                // Expected.
+            }
+        }
+
+        // ... then consecutive failures of the relay should eject it.
+        assertEquals("Failing relay should be ejected.", CircuitBreaker.State.OPEN,
+            sender.getRelays().get(0).getCircuitBreaker().getState());
+    }
+
+    /**
+     * Verifies if the notification isn't sent using another relay, when the relay times out waiting for the reply
+     * (message may have been accepted already).
+     */
+    @Test
+    public void shouldNotFailOverReadTimeout() {
+
+        // Given balancing mail sender, having the relay timing out while waiting for the reply, ...
+        final AtomicInteger delivered = new AtomicInteger();
+        final BalancingMailSender sender = BalancingMailSender.builder()
+                                                              .relay("timing out", timingOutRelay(), 10)
+                                                              .relay("healthy", (notification, listeners) ->
+                                                                  delivered.incrementAndGet())
+                                                              .get();
+
+        // ... when we send the notification, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Failure should be reported.");
+        } catch (final NotificationException exception) {
+
+            // ... then it shouldn't be sent again using another relay.
+            assertEquals("Notification shouldn't be duplicated.", 0, delivered.get());
+        }
+    }
+
+    /**
+     * Verifies if the relay having lower latency is preferred.
+     */
+    @Test
+    public void shouldPreferRelayHavingLowerLatency() {
+
+        // Given balancing mail sender, having slow and fast relay, ...
+        final AtomicInteger slow = new AtomicInteger();
+        final AtomicInteger fast = new AtomicInteger();
+        final BalancingMailSender sender = BalancingMailSender.builder()
+                                                              .relay("slow", (notification, listeners) -> {
+                                                                  slow.incrementAndGet();
+                                                                  try {
+                                                                      TimeUnit.MILLISECONDS.sleep(20);
+                                                                  } catch (final InterruptedException exception) {
+                                                                      Thread.currentThread().interrupt();
+                                                                  }
+                                                              })
+                                                              .relay("fast", (notification, listeners) ->
+                                                                  fast.incrementAndGet())
+                                                              .get();
+
+        // ... when we send many notifications, ...
+        for (int index = 0; index < 20; index++) {
+            sender.accept(notificationTo("recipient@example.com"));
+        }
+
+        // ... then most of them should be sent using fast relay.
+        assertTrue("Fast relay should be preferred.", fast.get() > slow.get());
+    }
+
+    /**
+     * Verifies if the probing call ending with an error doesn't leave ejected relay half-open.
+     */
+    @Test
+    public void shouldReleaseProbeEndedWithError() {
+
+        // Given balancing mail sender, having the relay ejected by transient failure, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        final BalancingMailSender sender = BalancingMailSender.builder()
+                                                              .relay("flaky", (notification, listeners) -> {
+                                                                  if (attempts.incrementAndGet() == 1) {
+                                                                      throw new NotificationException(
+                                                                          new MessagingException("Connection refused",
+                                                                              new ConnectException()));
+                                                                  }
+                                                                  if (attempts.get() == 2) {
+                                                                      throw new AssertionError("Unexpected error.");
+                                                                  }
+                                                              })
+                                                              .ejection(1, Duration.ZERO)
+                                                              .get();
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Transient failure should be reported.");
+        } catch (final NotificationException exception) {
+            // Expected, ejects the relay.
+        }
+
+        // ... when the probing call ends with an error, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Error should be reported.");
+        } catch (final AssertionError error) {
+            // Expected.
+        }
+
+        // ... then next call should probe the relay again.
+        sender.accept(notificationTo("recipient@example.com"));
+        assertEquals("Relay should be used again.", 3, attempts.get());
+        assertEquals("Relay should be restored.", CircuitBreaker.State.CLOSED,
+            sender.getRelays().get(0).getCircuitBreaker().getState());
+    }
+
+    /**
+     * Verifies if the notification is rejected, when all the relays are ejected.
+     */
+    @Test
+    public void shouldRejectNotificationWhenAllRelaysAreEjected() {
+
+        // Given balancing mail sender, having all the relays ejected, ...
+        final AtomicInteger failed = new AtomicInteger();
+        final BalancingMailSender sender = BalancingMailSender.builder()
+                                                              .relay("first", failingRelay(failed))
+                                                              .relay("second", failingRelay(failed))
+                                                              .ejection(1, Duration.ofMinutes(1))
+                                                              .get();
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Transient failure should be reported.");
+        } catch (final NotificationException exception) {
+            assertEquals("Failure of each relay should be reported.", 1, exception.getSuppressed().length);
+        }
+
+        // When we send the notification, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Notification should be rejected.");
+        } catch (final NotificationException exception) {
+
+            // ... then it should be rejected without using any relay.
+            assertTrue("Rejection should be reported.", exception.getCause() instanceof RejectedExecutionException);
+            assertEquals("Relays shouldn't be used.", 2, failed.get());
+        }
+    }
+
+}
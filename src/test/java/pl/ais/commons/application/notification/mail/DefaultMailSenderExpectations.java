@@ -0,0 +1,186 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.Session;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import org.junit.Test;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.Notification;
+import pl.ais.commons.application.notification.NotificationException;
+import pl.ais.commons.application.notification.mail.internal.FakeTransport;
+import pl.ais.commons.application.notification.mail.internal.FakeTransport.Mailbox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pl.ais.commons.application.notification.Notification.aNotification;
+import static pl.ais.commons.application.notification.component.Text.text;
+import static pl.ais.commons.application.notification.mail.MailSenderExpectations.notificationTo;
+
+/**
+ * Verifies {@link DefaultMailSender} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class DefaultMailSenderExpectations {
+
+    /**
+     * @param delivery the delivery
+     * @return content of delivered message, without the headers differing for each message
+     */
+    private static String contentOf(final FakeTransport.Delivery delivery) {
+        return new String(delivery.getContent(), StandardCharsets.US_ASCII)
+            .replaceAll("(?m)^(Date|Message-ID): .*\\r\\n", "");
+    }
+
+    /**
+     * Verifies if the notification is split into the envelope recipients only, and each message shows all
+     * the primary and CC recipients, but never the BCC ones.
+     *
+     * @throws AddressException if the address cannot be parsed
+     */
+    @Test
+    public void shouldKeepVisibleRecipientsOfChunkedNotification() throws AddressException {
+
+        // Given mail sender created for the session, ...
+        final Mailbox mailbox = new Mailbox();
+        final DefaultMailSender sender = new DefaultMailSender(FakeTransport.session(mailbox));
+
+        // ... when we send the notification having many recipients in chunks, ...
+        final AddressedNotification notification = aNotification().sentBy("sender@example.com")
+                                                                  .withSubject("Subject", "UTF-8")
+                                                                  .withContent(text("Content"))
+                                                                  .addressed()
+                                                                  .to("first@example.com")
+                                                                  .cc("second@example.com")
+                                                                  .bcc("third@example.com", "fourth@example.com")
+                                                                  .get();
+        final DeliveryReport report = sender.acceptChunked(notification, 2, Runnable::run);
+
+        // ... then each chunk of the recipients should get the message, ...
+        assertTrue("Notification should be delivered.", report.isDelivered());
+        final List<FakeTransport.Delivery> deliveries = mailbox.getDeliveries();
+        assertArrayEquals("First chunk should be sent to the primary and CC recipients.",
+            InternetAddress.parse("first@example.com, second@example.com"), deliveries.get(0).getRecipients());
+        assertArrayEquals("Second chunk should be sent to the BCC recipients.",
+            InternetAddress.parse("third@example.com, fourth@example.com"), deliveries.get(1).getRecipients());
+
+        // ... showing all the primary and CC recipients, but none of the BCC ones.
+        for (final FakeTransport.Delivery delivery : deliveries) {
+            final String content = contentOf(delivery);
+            assertTrue("Primary recipient should be shown.", content.contains("To: first@example.com\r\n"));
+            assertTrue("CC recipient should be shown.", content.contains("Cc: second@example.com\r\n"));
+            assertFalse("BCC recipients shouldn't be shown.", content.startsWith("Bcc:") || content.contains("\nBcc:"));
+        }
+    }
+
+    /**
+     * Verifies if the messages sent to many recipients are rendered the same way as the message sent to single
+     * recipient, sharing the content rendered once.
+     *
+     * @throws AddressException if the address cannot be parsed
+     */
+    @Test
+    public void shouldRenderFanOutMessagesLikeSingleMessage() throws AddressException {
+
+        // Given mail sender created for the session, ...
+        final Mailbox mailbox = new Mailbox();
+        final DefaultMailSender sender = new DefaultMailSender(FakeTransport.session(mailbox));
+
+        // ... when we send the notification to single recipient, and to many recipients, ...
+        final Notification notification = aNotification().sentBy("sender@example.com")
+                                                         .withSubject("Subject", "UTF-8")
+                                                         .withContent(text("Content"))
+                                                         .get();
+        sender.accept(notification.addressed().to("first@example.com").get());
+        final List<DeliveryOutcome> outcomes =
+            sender.acceptFanOut(notification, List.of("first@example.com", "second@example.com"));
+
+        // ... then each recipient should get the message, ...
+        assertTrue("Notifications should be delivered.", outcomes.stream().allMatch(DeliveryOutcome::isDelivered));
+        final List<FakeTransport.Delivery> deliveries = mailbox.getDeliveries();
+        assertArrayEquals("Message should be sent to the recipient only.",
+            new Address[] {new InternetAddress("second@example.com")}, deliveries.get(2).getRecipients());
+
+        // ... rendered the same way as the message sent to single recipient (except the per-message headers).
+        assertEquals("Message should be rendered the same way.", contentOf(deliveries.get(0)),
+            contentOf(deliveries.get(1)));
+        assertEquals("Message should differ in the recipient only.",
+            contentOf(deliveries.get(0)).replace("first@example.com", "second@example.com"),
+            contentOf(deliveries.get(2)));
+    }
+
+    /**
+     * Verifies if the batch of notifications is sent using single connection, replaced after it breaks.
+     */
+    @Test
+    public void shouldSendBatchUsingSingleConnection() {
+
+        // Given mail sender created for the session, ...
+        final Mailbox mailbox = new Mailbox();
+        final DefaultMailSender sender = new DefaultMailSender(FakeTransport.session(mailbox));
+
+        // ... when we send the batch of notifications, having the connection broken by the second of them, ...
+        final List<AddressedNotification> notifications =
+            List.of(notificationTo("first@example.com"), notificationTo("second@example.com"),
+                notificationTo("third@example.com"), notificationTo("fourth@example.com"));
+        mailbox.failSends(1, 1);
+        final List<DeliveryOutcome> batch = sender.acceptAll(notifications);
+
+        // ... then the outcome of each notification should be reported, ...
+        assertTrue("First notification should be delivered.", batch.get(0).isDelivered());
+        assertFalse("Failed notification should be reported.", batch.get(1).isDelivered());
+        assertTrue("Remaining notifications should be delivered.",
+            batch.get(2).isDelivered() && batch.get(3).isDelivered());
+
+        // ... single connection should be used until it breaks, and then replaced by new one.
+        final List<Integer> connections =
+            mailbox.getDeliveries().stream().map(FakeTransport.Delivery::getConnection).collect(toList());
+        assertEquals("Connection should be reused, and replaced once.", List.of(1, 2, 2), connections);
+    }
+
+    /**
+     * Verifies if the sender created for the transport pool sends the notifications using pooled connection, and
+     * doesn't send the notification again, if sending it fails.
+     */
+    @Test
+    public void shouldSendNotificationsUsingPooledConnection() {
+
+        // Given mail sender using the transport pool, ...
+        final Mailbox mailbox = new Mailbox();
+        final Session session = FakeTransport.session(mailbox);
+        try (TransportPool pool = TransportPool.builder(session).get()) {
+            final DefaultMailSender sender = new DefaultMailSender(pool);
+
+            // ... when we send the notifications, one of them failing, ...
+            sender.accept(notificationTo("first@example.com"));
+            mailbox.failSends(1);
+            try {
+                sender.accept(notificationTo("second@example.com"));
+                fail("Failure of sending the notification should be reported.");
+            } catch (final NotificationException exception) {
+                // Expected.
+            }
+            sender.accept(notificationTo("third@example.com"));
+
+            // ... then the failed notification shouldn't be sent again, ...
+            assertEquals("Each notification should be sent once.", 3, mailbox.getSendAttempts());
+            assertEquals("Notifications should be delivered.", 2, mailbox.getDeliveries().size());
+
+            // ... and broken connection should be replaced.
+            assertEquals("First notification should use pooled connection.", 1,
+                mailbox.getDeliveries().get(0).getConnection());
+            assertEquals("Last notification should use new connection.", 2,
+                mailbox.getDeliveries().get(1).getConnection());
+        }
+    }
+
+}
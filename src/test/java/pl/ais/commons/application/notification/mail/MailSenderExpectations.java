@@ -0,0 +1,131 @@
+package pl.ais.commons.application.notification.mail;
+
+import org.junit.Test;
+import pl.ais.commons.application.notification.AddressType;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.Notification;
+import pl.ais.commons.application.notification.NotificationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static pl.ais.commons.application.notification.Notification.aNotification;
+import static pl.ais.commons.application.notification.component.Text.text;
+
+/**
+ * Verifies {@link MailSender} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class MailSenderExpectations {
+
+    /**
+     * @param recipient recipient of the notification
+     * @return notification addressed to given recipient
+     */
+    static AddressedNotification notificationTo(final String recipient) {
+        return aNotification().withSubject("Subject", "UTF-8").withContent(text("Content"))
+                              .addressed().to(recipient).get();
+    }
+
+    /**
+     * Verifies if the notification having many recipients is delivered in chunks, and the outcomes are reported.
+     */
+    @Test
+    public void shouldDeliverNotificationInChunks() {
+
+        // Given mail sender failing to deliver the notification to some recipient, ...
+        final List<AddressedNotification> delivered = Collections.synchronizedList(new ArrayList<>());
+        final MailSender sender = (notification, listeners) -> {
+            if (notification.getRecipients(AddressType.BCC).anyMatch("failing@example.com"::equals)) {
+                throw new NotificationException(new IllegalStateException("Delivery failed."));
+            }
+            delivered.add(notification);
+        };
+
+        // ... when we send the notification having many recipients in chunks, ...
+        final AddressedNotification notification = aNotification().withSubject("Subject", "UTF-8")
+                                                                   .withContent(text("Content")).addressed()
+                                                                   .to("first@example.com")
+                                                                   .bcc("second@example.com", "third@example.com",
+                                                                       "failing@example.com", "fifth@example.com")
+                                                                   .get();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final DeliveryReport report;
+        try {
+            report = sender.acceptChunked(notification, 2, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        // ... then each chunk should be delivered separately, and its outcome should be reported.
+        assertEquals("Each chunk should have its outcome.", 3, report.getOutcomes().size());
+        assertEquals("Chunks without failing recipient should be delivered.", 2, report.getDeliveredCount());
+        assertEquals("Failed chunk should be reported.", 1, report.getFailures().size());
+        assertTrue("Chunks should have limited number of recipients.", delivered.stream().allMatch(chunk ->
+            Arrays.stream(AddressType.values()).mapToLong(type -> chunk.getRecipients(type).count()).sum() <= 2));
+    }
+
+    /**
+     * Verifies if the notification is delivered to each recipient separately.
+     */
+    @Test
+    public void shouldDeliverNotificationToEachRecipientSeparately() {
+
+        // Given mail sender, ...
+        final List<AddressedNotification> delivered = new ArrayList<>();
+        final MailSender sender = (notification, listeners) -> delivered.add(notification);
+
+        // ... when we fan out the notification to many recipients, ...
+        final Notification notification = aNotification().withSubject("Subject", "UTF-8")
+                                                          .withContent(text("Content")).get();
+        final List<DeliveryOutcome> outcomes = sender.acceptFanOut(notification,
+            Arrays.asList("first@example.com", "second@example.com"));
+
+        // ... then separate notification should be delivered to each recipient, in the order of recipients.
+        assertEquals("Each recipient should have its outcome.", 2, outcomes.size());
+        assertTrue("Notifications should be delivered.", outcomes.stream().allMatch(DeliveryOutcome::isDelivered));
+        assertArrayEquals("Each recipient should get separate notification.",
+            new Object[] {notificationTo("first@example.com"), notificationTo("second@example.com")},
+            delivered.toArray());
+    }
+
+    /**
+     * Verifies if failure of single notification delivery doesn't stop delivering the batch.
+     */
+    @Test
+    public void shouldReportOutcomeOfEachNotificationInTheBatch() {
+
+        // Given mail sender failing to deliver some notification, ...
+        final AddressedNotification failing = notificationTo("failing@example.com");
+        final MailSender sender = (notification, listeners) -> {
+            if (failing.equals(notification)) {
+                throw new NotificationException(new IllegalStateException("Delivery failed."));
+            }
+        };
+
+        // ... when we send the batch of notifications, ...
+        final List<AddressedNotification> batch = Arrays.asList(notificationTo("first@example.com"), failing,
+            notificationTo("last@example.com"));
+        final List<DeliveryOutcome> outcomes = sender.acceptAll(batch);
+
+        // ... then the outcome of each notification delivery should be reported, in the batch order.
+        assertEquals("Each notification should have its outcome.", batch.size(), outcomes.size());
+        assertTrue("First notification should be delivered.", outcomes.get(0).isDelivered());
+        assertFalse("Failing notification shouldn't be delivered.", outcomes.get(1).isDelivered());
+        assertTrue("Failure should be reported.", outcomes.get(1).getFailure().isPresent());
+        assertSame("Outcome should refer the notification.", failing, outcomes.get(1).getNotification());
+        assertTrue("Last notification should be delivered.", outcomes.get(2).isDelivered());
+    }
+
+}
@@ -0,0 +1,90 @@
+package pl.ais.commons.application.notification.mail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.ais.commons.application.notification.AddressedNotification;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pl.ais.commons.application.notification.mail.MailSenderExpectations.notificationTo;
+
+/**
+ * Verifies {@link NotificationJournal} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class NotificationJournalExpectations {
+
+    /**
+     * Temporary folder holding the journal.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies if notifications which weren't delivered are replayed after reopening the journal.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldReplayPendingNotificationsAfterReopening() throws IOException {
+
+        // Given the journal holding some notifications, some of them delivered, ...
+        final Path directory = folder.newFolder().toPath();
+        final List<AddressedNotification> notifications = Arrays.asList(notificationTo("first@example.com"),
+            notificationTo("second@example.com"), notificationTo("third@example.com"));
+        try (NotificationJournal journal = NotificationJournal.builder(directory).get()) {
+            final List<Long> entries = new ArrayList<>();
+            notifications.forEach(notification -> entries.add(journal.append(notification)));
+            journal.markDelivered(entries.get(1));
+        }
+
+        // ... when we reopen the journal, and replay it, ...
+        final List<AddressedNotification> replayed = new ArrayList<>();
+        try (NotificationJournal journal = NotificationJournal.builder(directory).get()) {
+            journal.replay((notification, entry) -> replayed.add(notification));
+
+            // ... then pending notifications should be replayed, in the order of appending.
+            assertEquals("Pending count should be restored.", 2, journal.getPendingCount());
+        }
+        assertEquals("Pending notifications should be replayed.",
+            Arrays.asList(notifications.get(0), notifications.get(2)), replayed);
+    }
+
+    /**
+     * Verifies if segments holding delivered notifications only are removed.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldRemoveSegmentsHoldingDeliveredNotificationsOnly() throws IOException {
+
+        // Given the journal using small segments, ...
+        try (NotificationJournal journal = NotificationJournal.builder(folder.newFolder().toPath())
+                                                              .segmentSize(4096).get()) {
+
+            // ... holding many notifications, ...
+            final List<Long> entries = new ArrayList<>();
+            for (int index = 0; index < 100; index++) {
+                entries.add(journal.append(notificationTo("recipient" + index + "@example.com")));
+            }
+            assertTrue("Journal should use many segments.", journal.getSegmentCount() > 1);
+
+            // ... when all of them get delivered, ...
+            entries.forEach(journal::markDelivered);
+
+            // ... then only the active segment should remain.
+            assertEquals("Only active segment should remain.", 1, journal.getSegmentCount());
+            assertEquals("There should be no pending notifications.", 0, journal.getPendingCount());
+        }
+    }
+
+}
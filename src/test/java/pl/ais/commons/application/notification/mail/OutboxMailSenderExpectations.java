@@ -0,0 +1,219 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.event.TransportEvent;
+import jakarta.mail.event.TransportListener;
+import jakarta.mail.internet.InternetAddress;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.ais.commons.application.notification.AddressedNotification;
+import pl.ais.commons.application.notification.NotificationException;
+import pl.ais.commons.application.notification.mail.internal.FakeTransport;
+import pl.ais.commons.application.notification.mail.internal.FakeTransport.Mailbox;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pl.ais.commons.application.notification.mail.MailSenderExpectations.notificationTo;
+
+/**
+ * Verifies {@link OutboxMailSender} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class OutboxMailSenderExpectations {
+
+    /**
+     * Temporary folder holding the journal.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Reports the delivery event to given listeners.
+     *
+     * @param type        type of the event
+     * @param validUnsent valid recipients, which the message wasn't sent to
+     * @param listeners   the listeners
+     * @throws MessagingException if the transport cannot be created
+     */
+    private static void report(final int type, final Address[] validUnsent, final TransportListener... listeners)
+        throws MessagingException {
+        final Transport transport = FakeTransport.session(new Mailbox()).getTransport();
+        final TransportEvent event = new TransportEvent(transport, type, new Address[0], validUnsent, new Address[0],
+            null);
+        for (final TransportListener listener : listeners) {
+            switch (type) {
+                case TransportEvent.MESSAGE_DELIVERED:
+                    listener.messageDelivered(event);
+                    break;
+
+                case TransportEvent.MESSAGE_NOT_DELIVERED:
+                    listener.messageNotDelivered(event);
+                    break;
+
+                default:
+                    listener.messagePartiallyDelivered(event);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Verifies if the notification rejected by the delegate isn't replayed.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldNotReplayRejectedNotification() throws IOException {
+
+        // Given outbox mail sender, which delegate rejects the notifications, ...
+        final List<AddressedNotification> accepted = new ArrayList<>();
+        try (NotificationJournal journal = NotificationJournal.builder(folder.newFolder().toPath()).get()) {
+            final OutboxMailSender sender = new OutboxMailSender((notification, listeners) -> {
+                accepted.add(notification);
+                throw new NotificationException(new IllegalArgumentException("Invalid recipient."));
+            }, journal);
+
+            // ... when we send the notification, ...
+            try {
+                sender.accept(notificationTo("recipient@example.com"));
+                fail("Rejection should be reported.");
+            } catch (final NotificationException exception) {
+
+                // ... then the rejection should be reported, ...
+                assertEquals("Journal entry should be concluded.", 0, journal.getPendingCount());
+            }
+
+            // ... and the notification shouldn't be replayed.
+            assertEquals("Nothing should be replayed.", 0, sender.replay());
+            assertEquals("Notification should be passed to the delegate once.", 1, accepted.size());
+        }
+    }
+
+    /**
+     * Verifies if the notification failed transiently is kept pending, and replayed.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldReplayNotificationFailedTransiently() throws IOException {
+
+        // Given outbox mail sender, which delegate fails transiently once, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        try (NotificationJournal journal = NotificationJournal.builder(folder.newFolder().toPath()).get()) {
+            final OutboxMailSender sender = new OutboxMailSender((notification, listeners) -> {
+                if (1 == attempts.incrementAndGet()) {
+                    throw new NotificationException(
+                        new MessagingException("Couldn't connect to host", new ConnectException()));
+                }
+            }, journal);
+
+            // ... when we send the notification, ...
+            try {
+                sender.accept(notificationTo("recipient@example.com"));
+                fail("Failure should be reported.");
+            } catch (final NotificationException exception) {
+
+                // ... then the failure should be reported, keeping the journal entry pending, ...
+                assertEquals("Journal entry should be pending.", 1, journal.getPendingCount());
+            }
+
+            // ... and the notification should be replayed.
+            assertEquals("Notification should be replayed.", 1, sender.replay());
+            assertEquals("Notification should be passed to the delegate again.", 2, attempts.get());
+        }
+    }
+
+    /**
+     * Verifies if the notification, which recipients were rejected temporarily by the transport, is replayed.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void shouldReplayNotificationRejectedTemporarily() throws IOException {
+
+        // Given outbox mail sender, which transport rejects all the recipients temporarily once, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        try (NotificationJournal journal = NotificationJournal.builder(folder.newFolder().toPath()).get()) {
+            final OutboxMailSender sender = new OutboxMailSender((notification, listeners) -> {
+                if (1 == attempts.incrementAndGet()) {
+                    try {
+                        report(TransportEvent.MESSAGE_NOT_DELIVERED,
+                            new Address[] {new InternetAddress("recipient@example.com")}, listeners);
+                    } catch (final MessagingException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                }
+            }, journal);
+
+            // ... when we send the notification, ...
+            sender.accept(notificationTo("recipient@example.com"));
+
+            // ... then it should be kept pending, and replayed.
+            assertEquals("Journal entry should be pending.", 1, journal.getPendingCount());
+            assertEquals("Notification should be replayed.", 1, sender.replay());
+            assertEquals("Notification should be passed to the delegate again.", 2, attempts.get());
+        }
+    }
+
+    /**
+     * Verifies if the notifications which weren't delivered by previous sender are replayed, while the ones being
+     * delivered at the moment are skipped.
+     *
+     * @throws Exception in case of I/O problems, or if the delivery cannot be reported
+     */
+    @Test
+    public void shouldReplayUndeliveredNotificationsOnly() throws Exception {
+
+        // Given the journal holding the notification accepted by previous sender, but not delivered, ...
+        try (NotificationJournal journal = NotificationJournal.builder(folder.newFolder().toPath()).get()) {
+            new OutboxMailSender((notification, listeners) -> { }, journal).accept(notificationTo("first@example.com"));
+
+            // ... and the sender delivering the notifications asynchronously, having some of them in flight, ...
+            final CountDownLatch release = new CountDownLatch(1);
+            final List<TransportListener[]> deliveries = new CopyOnWriteArrayList<>();
+            final AsyncMailSender delegate = AsyncMailSender.builder((notification, listeners) -> {
+                deliveries.add(listeners);
+                try {
+                    release.await();
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }).workers(1).get();
+            final OutboxMailSender sender = new OutboxMailSender(delegate, journal);
+            sender.accept(notificationTo("second@example.com"));
+
+            // ... when we replay the journal (twice), ...
+            final int replayed = sender.replay();
+            final int replayedAgain = sender.replay();
+
+            // ... then the notification of previous sender should be replayed once, skipping the one in flight, ...
+            assertEquals("Undelivered notification should be replayed.", 1, replayed);
+            assertEquals("Notification in flight shouldn't be replayed.", 0, replayedAgain);
+            release.countDown();
+            assertTrue("Notifications should be delivered.", delegate.shutdown(Duration.ofSeconds(5)));
+            assertEquals("Each notification should be passed to the delegate once.", 2, deliveries.size());
+
+            // ... and reported deliveries should conclude the journal entries.
+            for (final TransportListener[] listeners : deliveries) {
+                report(TransportEvent.MESSAGE_DELIVERED, new Address[0], listeners);
+            }
+            assertEquals("Journal entries should be concluded.", 0, journal.getPendingCount());
+        }
+    }
+
+}
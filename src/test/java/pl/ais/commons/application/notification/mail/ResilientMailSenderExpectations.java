@@ -0,0 +1,208 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.MessagingException;
+import org.junit.Test;
+import pl.ais.commons.application.notification.AddressType;
+import pl.ais.commons.application.notification.NotificationException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pl.ais.commons.application.notification.mail.MailSenderExpectations.notificationTo;
+
+/**
+ * Verifies {@link ResilientMailSender} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class ResilientMailSenderExpectations {
+
+    private static final NotificationException PERMANENT_FAILURE =
+        new NotificationException(new MessagingException("550 5.1.1 User unknown"));
+
+    private static final NotificationException TRANSIENT_FAILURE =
+        new NotificationException(new MessagingException("Couldn't connect to host", new ConnectException()));
+
+    /**
+     * Verifies if notifications are rejected without calling the delegate, when the circuit breaker is open.
+     */
+    @Test
+    public void shouldFailFastWhenCircuitBreakerIsOpen() {
+
+        // Given resilient mail sender, which delegate keeps failing, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        final ResilientMailSender sender = ResilientMailSender.builder((notification, listeners) -> {
+            attempts.incrementAndGet();
+            throw TRANSIENT_FAILURE;
+        }).maximumAttempts(1).circuitBreaker(2, Duration.ofMinutes(1)).get();
+        for (int index = 0; index < 2; index++) {
+            try {
+                sender.accept(notificationTo("recipient@example.com"));
+            } catch (final NotificationException exception) {
+                // Expected, opens the circuit breaker eventually.
+            }
+        }
+
+        // ... when we send next notification, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Notification should be rejected.");
+        } catch (final NotificationException exception) {
+
+            // ... then it should be rejected without calling the delegate.
+            assertTrue("Rejection should be reported.", exception.getCause() instanceof RejectedExecutionException);
+            assertEquals("Delegate shouldn't be called.", 2, attempts.get());
+            assertEquals("Circuit breaker should be open.", CircuitBreaker.State.OPEN,
+                sender.getCircuitBreaker().getState());
+        }
+    }
+
+    /**
+     * Verifies if the failure saying nothing about the relay doesn't reset consecutive failures of the relay.
+     */
+    @Test
+    public void shouldIgnoreFailureUnrelatedToRelay() {
+
+        // Given resilient mail sender, which delegate fails transiently, except for invalid notifications, ...
+        final ResilientMailSender sender = ResilientMailSender.builder((notification, listeners) -> {
+            if (notification.getRecipients(AddressType.PRIMARY).anyMatch("invalid"::equals)) {
+                throw new IllegalArgumentException("Invalid address.");
+            }
+            throw TRANSIENT_FAILURE;
+        }).maximumAttempts(1).circuitBreaker(2, Duration.ofMinutes(1)).get();
+
+        // ... when we send invalid notifications between the failing ones, ...
+        for (final String recipient : new String[] {"recipient@example.com", "invalid", "recipient@example.com"}) {
+            try {
+                sender.accept(notificationTo(recipient));
+                fail("Failure should be reported.");
+            } catch (final RuntimeException exception) {
+                // Expected.
+            }
+        }
+
+        // ... then consecutive failures of the relay should open the circuit breaker.
+        assertEquals("Circuit breaker should be open.", CircuitBreaker.State.OPEN,
+            sender.getCircuitBreaker().getState());
+    }
+
+    /**
+     * Verifies if permanent failure is not retried.
+     */
+    @Test
+    public void shouldNotRetryPermanentFailure() {
+
+        // Given resilient mail sender, which delegate fails permanently, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        final ResilientMailSender sender = ResilientMailSender.builder((notification, listeners) -> {
+            attempts.incrementAndGet();
+            throw PERMANENT_FAILURE;
+        }).backoff(Duration.ofMillis(1), Duration.ofMillis(2)).get();
+
+        // ... when we send the notification, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Permanent failure should be reported.");
+        } catch (final NotificationException exception) {
+
+            // ... then it should be attempted once only, leaving the circuit breaker closed.
+            assertEquals("Delivery should be attempted once.", 1, attempts.get());
+            assertEquals("Circuit breaker should be closed.", CircuitBreaker.State.CLOSED,
+                sender.getCircuitBreaker().getState());
+        }
+    }
+
+    /**
+     * Verifies if the read timeout (message may have been accepted by the relay already) is not retried.
+     */
+    @Test
+    public void shouldNotRetryReadTimeout() {
+
+        // Given resilient mail sender, which delegate times out waiting for the reply, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        final ResilientMailSender sender = ResilientMailSender.builder((notification, listeners) -> {
+            attempts.incrementAndGet();
+            throw new NotificationException(
+                new MessagingException("Exception reading response", new SocketTimeoutException("Read timed out")));
+        }).backoff(Duration.ofMillis(1), Duration.ofMillis(2)).get();
+
+        // ... when we send the notification, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Failure should be reported.");
+        } catch (final NotificationException exception) {
+
+            // ... then it should be attempted once only, to avoid duplicating the message.
+            assertEquals("Delivery should be attempted once.", 1, attempts.get());
+        }
+    }
+
+    /**
+     * Verifies if the probing call ending with an error doesn't leave the circuit breaker half-open.
+     */
+    @Test
+    public void shouldReleaseProbeEndedWithError() {
+
+        // Given resilient mail sender, which circuit breaker was opened by transient failure, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        final ResilientMailSender sender = ResilientMailSender.builder((notification, listeners) -> {
+            switch (attempts.incrementAndGet()) {
+                case 1:
+                    throw TRANSIENT_FAILURE;
+                case 2:
+                    throw new AssertionError("Unexpected error.");
+                default:
+                    break;
+            }
+        }).maximumAttempts(1).circuitBreaker(1, Duration.ZERO).get();
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Transient failure should be reported.");
+        } catch (final NotificationException exception) {
+            // Expected, opens the circuit breaker.
+        }
+
+        // ... when the probing call ends with an error, ...
+        try {
+            sender.accept(notificationTo("recipient@example.com"));
+            fail("Error should be reported.");
+        } catch (final AssertionError error) {
+            // Expected.
+        }
+
+        // ... then next call should probe the relay again.
+        sender.accept(notificationTo("recipient@example.com"));
+        assertEquals("Delegate should be called again.", 3, attempts.get());
+        assertEquals("Circuit breaker should be closed.", CircuitBreaker.State.CLOSED,
+            sender.getCircuitBreaker().getState());
+    }
+
+    /**
+     * Verifies if transient failures are retried.
+     */
+    @Test
+    public void shouldRetryTransientFailures() {
+
+        // Given resilient mail sender, which delegate fails twice before delivering the notification, ...
+        final AtomicInteger attempts = new AtomicInteger();
+        final ResilientMailSender sender = ResilientMailSender.builder((notification, listeners) -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw TRANSIENT_FAILURE;
+            }
+        }).maximumAttempts(3).backoff(Duration.ofMillis(1), Duration.ofMillis(2)).get();
+
+        // When we send the notification, ...
+        sender.accept(notificationTo("recipient@example.com"));
+
+        // ... then it should be delivered on third attempt.
+        assertEquals("Delivery should be attempted three times.", 3, attempts.get());
+    }
+
+}
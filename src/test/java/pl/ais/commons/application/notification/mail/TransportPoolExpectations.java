@@ -0,0 +1,200 @@
+package pl.ais.commons.application.notification.mail;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.Test;
+import pl.ais.commons.application.notification.mail.internal.FakeTransport;
+import pl.ais.commons.application.notification.mail.internal.FakeTransport.Mailbox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies {@link TransportPool} expectations.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public class TransportPoolExpectations {
+
+    /**
+     * @param session mail session
+     * @return newly created message addressed to single recipient
+     * @throws MessagingException if the message cannot be created
+     */
+    private static MimeMessage messageOf(final Session session) throws MessagingException {
+        final MimeMessage result = new MimeMessage(session);
+        result.setFrom(new InternetAddress("sender@example.com"));
+        result.setRecipient(Message.RecipientType.TO, new InternetAddress("recipient@example.com"));
+        result.setSubject("Subject", "UTF-8");
+        result.setText("Content", "UTF-8");
+        result.saveChanges();
+        return result;
+    }
+
+    /**
+     * Verifies if the caller waits for the connection for limited time only, when all of them are in use.
+     *
+     * @throws Exception if the message cannot be created, or the test is interrupted
+     */
+    @Test
+    public void shouldFailWhenNoConnectionIsAvailableWithinBorrowTimeout() throws Exception {
+
+        // Given transport pool having single connection, used by the message which sending hangs, ...
+        final Mailbox mailbox = new Mailbox();
+        final Session session = FakeTransport.session(mailbox);
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MimeMessage hanging = new MimeMessage(messageOf(session)) {
+            @Override
+            public void writeTo(final OutputStream output) throws IOException, MessagingException {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                super.writeTo(output);
+            }
+        };
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (TransportPool pool = TransportPool.builder(session).maximumSize(1).borrowTimeout(Duration.ofMillis(10))
+                                               .get()) {
+            final Future<?> hangingSend = executor.submit(() -> {
+                pool.send(hanging);
+                return null;
+            });
+            sending.await();
+
+            // ... when we send next message, ...
+            try {
+                pool.send(messageOf(session));
+                fail("Timeout should be reported.");
+            } catch (final MessagingException exception) {
+
+                // ... then the failure should be reported, without sending the message.
+                assertEquals("Message shouldn't be sent.", 1, mailbox.getSendAttempts());
+            }
+            release.countDown();
+            hangingSend.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies if the failure of sending the message isn't retried, and broken connection is discarded.
+     *
+     * @throws MessagingException if the message cannot be created
+     */
+    @Test
+    public void shouldNotRetryFailedSend() throws MessagingException {
+
+        // Given transport pool, which connection breaks while sending the message, ...
+        final Mailbox mailbox = new Mailbox();
+        final Session session = FakeTransport.session(mailbox);
+        try (TransportPool pool = TransportPool.builder(session).get()) {
+            mailbox.failSends(1);
+
+            // ... when we send the message, ...
+            try {
+                pool.send(messageOf(session));
+                fail("Failure of sending the message should be reported.");
+            } catch (final MessagingException exception) {
+
+                // ... then it should be sent once only (as it may have been accepted already), ...
+                assertEquals("Message shouldn't be sent again.", 1, mailbox.getSendAttempts());
+            }
+
+            // ... and the connection should be discarded.
+            assertEquals("Broken connection shouldn't be pooled.", 0, pool.getIdleCount());
+            pool.send(messageOf(session));
+            assertEquals("Next message should use new connection.", 2, mailbox.getDeliveries().get(0).getConnection());
+        }
+    }
+
+    /**
+     * Verifies if the stale connection is detected on checkout, and replaced without sending the message twice.
+     *
+     * @throws MessagingException if the message cannot be sent
+     */
+    @Test
+    public void shouldReplaceStaleConnectionOnCheckout() throws MessagingException {
+
+        // Given transport pool validating idle connections before use, having the connection closed by the server, ...
+        final Mailbox mailbox = new Mailbox();
+        final Session session = FakeTransport.session(mailbox);
+        try (TransportPool pool = TransportPool.builder(session).validationInterval(Duration.ZERO).get()) {
+            pool.send(messageOf(session));
+            mailbox.dropConnections();
+
+            // ... when we send next message, ...
+            pool.send(messageOf(session));
+
+            // ... then it should be sent once, using new connection.
+            assertEquals("Each message should be sent once.", 2, mailbox.getSendAttempts());
+            assertEquals("Stale connection should be replaced.", 2, pool.getOpenedCount());
+            assertEquals("Message should use new connection.", 2, mailbox.getDeliveries().get(1).getConnection());
+        }
+    }
+
+    /**
+     * Verifies if the connection is reused for sending many messages.
+     *
+     * @throws MessagingException if the message cannot be sent
+     */
+    @Test
+    public void shouldReuseConnection() throws MessagingException {
+
+        // Given transport pool, ...
+        final Mailbox mailbox = new Mailbox();
+        final Session session = FakeTransport.session(mailbox);
+        try (TransportPool pool = TransportPool.builder(session).get()) {
+
+            // ... when we send many messages, ...
+            for (int index = 0; index < 3; index++) {
+                pool.send(messageOf(session));
+            }
+
+            // ... then all of them should be sent using single connection.
+            assertEquals("All messages should be delivered.", 3, mailbox.getDeliveries().size());
+            assertEquals("Single connection should be opened.", 1, pool.getOpenedCount());
+            assertEquals("Connection should be pooled.", 1, pool.getIdleCount());
+        }
+    }
+
+    /**
+     * Verifies if the failure of opening the connection is retried.
+     *
+     * @throws MessagingException if the message cannot be sent
+     */
+    @Test
+    public void shouldRetryFailedConnect() throws MessagingException {
+
+        // Given transport pool, which first connection attempt fails, ...
+        final Mailbox mailbox = new Mailbox();
+        final Session session = FakeTransport.session(mailbox);
+        try (TransportPool pool = TransportPool.builder(session).get()) {
+            mailbox.failConnects(1);
+
+            // ... when we send the message, ...
+            pool.send(messageOf(session));
+
+            // ... then it should be sent using the connection opened by the second attempt.
+            assertEquals("Connection should be attempted twice.", 2, mailbox.getConnectAttempts());
+            assertEquals("Message should be delivered once.", 1, mailbox.getDeliveries().size());
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package pl.ais.commons.application.notification.mail.internal;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.NoSuchProviderException;
+import jakarta.mail.Provider;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Transport} recording sent messages in the {@link Mailbox}, instead of sending them.
+ *
+ * @author Warlock, AIS.PL
+ * @since 1.3.4
+ */
+public final class FakeTransport extends Transport {
+
+    private static final String PROTOCOL = "fake";
+
+    private int connection;
+
+    private int generation;
+
+    private final Mailbox mailbox;
+
+    /**
+     * Constructs new instance.
+     *
+     * @param session mail session
+     * @param urlName URL name of the transport
+     */
+    public FakeTransport(final Session session, final URLName urlName) {
+        super(session, urlName);
+        mailbox = (Mailbox) session.getProperties().get(Mailbox.class.getName());
+    }
+
+    /**
+     * Creates the mail session, which transport records sent messages in given mailbox.
+     *
+     * @param mailbox the mailbox
+     * @return newly created mail session
+     */
+    public static Session session(final Mailbox mailbox) {
+        final Properties properties = new Properties();
+        properties.setProperty("mail.transport.protocol", PROTOCOL);
+        properties.put(Mailbox.class.getName(), mailbox);
+        final Session result = Session.getInstance(properties);
+        try {
+            result.setProvider(new Provider(Provider.Type.TRANSPORT, PROTOCOL, FakeTransport.class.getName(),
+                "AIS.PL", null));
+        } catch (final NoSuchProviderException exception) {
+            throw new IllegalStateException(exception);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean isConnected() {
+        return super.isConnected() && (generation == mailbox.generation.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean protocolConnect(final String host, final int port, final String user, final String password)
+        throws MessagingException {
+        mailbox.connectAttempts.incrementAndGet();
+        if (mailbox.connectFailures.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            throw new MessagingException("Connection refused.");
+        }
+        connection = mailbox.connections.incrementAndGet();
+        generation = mailbox.generation.get();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendMessage(final Message message, final Address[] addresses) throws MessagingException {
+        mailbox.sendAttempts.incrementAndGet();
+        if (!isConnected()) {
+            throw new MessagingException("Connection is broken.");
+        }
+        if ((mailbox.sendsBeforeFailure.getAndUpdate(count -> Math.max(count - 1, 0)) == 0)
+            && (mailbox.sendFailures.getAndUpdate(count -> Math.max(count - 1, 0)) > 0)) {
+            throw new MessagingException("Read timed out.");
+        }
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            message.writeTo(content);
+        } catch (final IOException exception) {
+            throw new MessagingException("Unable to write the message.", exception);
+        }
+        mailbox.deliveries.add(new Delivery(connection, addresses.clone(), content.toByteArray()));
+    }
+
+    /**
+     * Message delivered using the fake transport.
+     */
+    public static final class Delivery {
+
+        private final int connection;
+
+        private final byte[] content;
+
+        private final Address[] recipients;
+
+        Delivery(final int connection, final Address[] recipients, final byte[] content) {
+            this.connection = connection;
+            this.recipients = recipients;
+            this.content = content;
+        }
+
+        /**
+         * @return number of the connection used for the delivery (connections are numbered from 1)
+         */
+        public int getConnection() {
+            return connection;
+        }
+
+        /**
+         * @return the message, as written to the transport
+         */
+        public byte[] getContent() {
+            return content.clone();
+        }
+
+        /**
+         * @return envelope recipients of the message
+         */
+        public Address[] getRecipients() {
+            return recipients.clone();
+        }
+
+    }
+
+    /**
+     * Mailbox recording the activity of the fake transports.
+     */
+    public static final class Mailbox {
+
+        private final AtomicInteger connectAttempts = new AtomicInteger();
+
+        private final AtomicInteger connectFailures = new AtomicInteger();
+
+        private final AtomicInteger connections = new AtomicInteger();
+
+        private final List<Delivery> deliveries = Collections.synchronizedList(new ArrayList<>());
+
+        private final AtomicInteger generation = new AtomicInteger();
+
+        private final AtomicInteger sendAttempts = new AtomicInteger();
+
+        private final AtomicInteger sendFailures = new AtomicInteger();
+
+        private final AtomicInteger sendsBeforeFailure = new AtomicInteger();
+
+        /**
+         * Breaks all connections opened so far, as if the server closed them.
+         */
+        public void dropConnections() {
+            generation.incrementAndGet();
+        }
+
+        /**
+         * @param count number of the next connection attempts, which should fail
+         */
+        public void failConnects(final int count) {
+            connectFailures.set(count);
+        }
+
+        /**
+         * @param count number of the next send attempts, which should fail (as if the connection broke after
+         *              transferring the message)
+         */
+        public void failSends(final int count) {
+            failSends(0, count);
+        }
+
+        /**
+         * @param skipped number of the next send attempts, which should succeed before the failures
+         * @param count   number of the send attempts following skipped ones, which should fail (as if the connection
+         *                broke after transferring the message)
+         */
+        public void failSends(final int skipped, final int count) {
+            sendsBeforeFailure.set(skipped);
+            sendFailures.set(count);
+        }
+
+        /**
+         * @return number of connection attempts
+         */
+        public int getConnectAttempts() {
+            return connectAttempts.get();
+        }
+
+        /**
+         * @return number of opened connections
+         */
+        public int getConnections() {
+            return connections.get();
+        }
+
+        /**
+         * @return messages delivered so far, in the order of delivery
+         */
+        public List<Delivery> getDeliveries() {
+            synchronized (deliveries) {
+                return new ArrayList<>(deliveries);
+            }
+        }
+
+        /**
+         * @return number of send attempts
+         */
+        public int getSendAttempts() {
+            return sendAttempts.get();
+        }
+
+    }
+
+}